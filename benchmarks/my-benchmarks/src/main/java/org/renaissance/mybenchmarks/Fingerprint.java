@@ -0,0 +1,87 @@
+package org.renaissance.mybenchmarks;
+
+import java.math.BigInteger;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+
+import org.renaissance.mybenchmarks.SimplexSolver.Constraint;
+import org.renaissance.mybenchmarks.SimplexSolver.LinearProgram;
+
+// Content hash of a LinearProgram: SHA-256 over its direction, objective and the
+// coefficients, type and rhs of every constraint, with all lengths included so
+// different shapes cannot run together. Equal programs get equal fingerprints
+// and different ones practically never collide, so a fingerprint can stand in
+// for its program as a cache key.
+public final class Fingerprint {
+
+    private final byte[] digest;
+
+    private Fingerprint(byte[] digest) {
+        this.digest = digest;
+    }
+
+    public static Fingerprint of(LinearProgram lp) {
+        MessageDigest md;
+        try {
+            md = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available.", e);
+        }
+
+        md.update((byte) (lp.maximize ? 1 : 0));
+        update(md, lp.objective);
+        updateInt(md, lp.constraints.size());
+        for (Constraint c : lp.constraints) {
+            update(md, c.coefficients);
+            md.update((byte) c.type.ordinal());
+            update(md, c.rhs);
+        }
+        return new Fingerprint(md.digest());
+    }
+
+    private static void update(MessageDigest md, Rational[] values) {
+        updateInt(md, values.length);
+        for (Rational r : values) {
+            update(md, r);
+        }
+    }
+
+    private static void update(MessageDigest md, Rational r) {
+        update(md, r.numerator());
+        update(md, r.denominator());
+    }
+
+    private static void update(MessageDigest md, BigInteger value) {
+        byte[] bytes = value.toByteArray();
+        updateInt(md, bytes.length);
+        md.update(bytes);
+    }
+
+    private static void updateInt(MessageDigest md, int value) {
+        md.update((byte) (value >>> 24));
+        md.update((byte) (value >>> 16));
+        md.update((byte) (value >>> 8));
+        md.update((byte) value);
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        return obj instanceof Fingerprint && Arrays.equals(digest, ((Fingerprint) obj).digest);
+    }
+
+    @Override
+    public int hashCode() {
+        // The digest is uniformly distributed, any four bytes will do
+        return (digest[0] & 0xff) << 24 | (digest[1] & 0xff) << 16 | (digest[2] & 0xff) << 8 | (digest[3] & 0xff);
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder(2 * digest.length);
+        for (byte b : digest) {
+            sb.append(String.format("%02x", b));
+        }
+        return sb.toString();
+    }
+}
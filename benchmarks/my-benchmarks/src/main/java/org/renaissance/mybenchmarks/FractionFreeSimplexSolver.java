@@ -0,0 +1,220 @@
+package org.renaissance.mybenchmarks;
+
+import java.math.BigInteger;
+import java.util.Arrays;
+
+import org.renaissance.mybenchmarks.SimplexSolver.Constraint;
+import org.renaissance.mybenchmarks.SimplexSolver.LPResult;
+import org.renaissance.mybenchmarks.SimplexSolver.LinearProgram;
+
+// Two-phase simplex with the same pivoting rules as SimplexSolver, but running
+// on an IntegerTableau. Rational inputs are scaled to integers row by row
+// (which rescales the slack and artificial variables of that row) and the
+// objective by the common denominator of its coefficients. It starts from the
+// plain slack/artificial basis, without the crash of SimplexSolver.
+public class FractionFreeSimplexSolver implements LPSolver {
+
+    private IntegerTableau tableau;
+    private int rows, cols;
+    private int numVarsOriginal;
+    private int[] basis;
+    private BigInteger objectiveScale;
+    private int steps = 0;
+    private int maxSteps;
+    private volatile boolean cancelled;
+
+    public FractionFreeSimplexSolver(int maxSteps) {
+        this.maxSteps = maxSteps;
+    }
+
+    @Override
+    public void cancel() {
+        cancelled = true;
+    }
+
+    @Override
+    public LPResult solve(LinearProgram lp) {
+        steps = 0;
+        int artificialVars = preprocess(lp);
+
+        // Phase I
+        if (artificialVars > 0) {
+            boolean finished = optimize();
+            if (!finished)
+                return unfinished(LPResult.UNBOUNDED);
+            if (tableau.signum(rows - 1, cols - 1) != 0)
+                return LPResult.INFEASIBLE;
+            tableau.removeColumns(artificialVars);
+            cols -= artificialVars;
+        }
+
+        // Phase II
+        resetObjective(lp);
+
+        boolean finished = optimize();
+        if (!finished)
+            return unfinished(LPResult.UNBOUNDED);
+        return extractSolution(lp);
+    }
+
+    private int preprocess(LinearProgram lp) {
+        numVarsOriginal = lp.objective.length;
+
+        int slackVars = 0, artificialVars = 0;
+        for (Constraint c : lp.constraints) {
+            if (c.type != Constraint.Type.EQ)
+                slackVars++;
+            if (c.type != Constraint.Type.LE)
+                artificialVars++;
+        }
+
+        rows = lp.constraints.size() + 1;
+        cols = numVarsOriginal + slackVars + artificialVars + 1;
+        tableau = new IntegerTableau(rows, cols);
+        basis = new int[rows - 1];
+
+        // Phase I objective, sum of artificial vars minus their rows
+        BigInteger[] phaseOne = new BigInteger[cols];
+        for (int j = 0; j < cols; j++) {
+            boolean isArtificial = j >= numVarsOriginal + slackVars && j < cols - 1;
+            phaseOne[j] = isArtificial ? BigInteger.ONE : BigInteger.ZERO;
+        }
+
+        int slackIndex = numVarsOriginal;
+        int artificialIndex = numVarsOriginal + slackVars;
+        for (int i = 0; i < lp.constraints.size(); i++) {
+            Constraint c = lp.constraints.get(i);
+            BigInteger scale = c.rhs.denominator();
+            for (Rational r : c.coefficients) {
+                scale = lcm(scale, r.denominator());
+            }
+
+            BigInteger[] row = new BigInteger[cols];
+            for (int j = 0; j < cols; j++) {
+                row[j] = j < c.coefficients.length ? scaled(c.coefficients[j], scale) : BigInteger.ZERO;
+            }
+            if (c.type == Constraint.Type.LE) {
+                row[slackIndex] = BigInteger.ONE;
+                basis[i] = slackIndex++;
+            } else if (c.type == Constraint.Type.GE) {
+                row[slackIndex++] = BigInteger.ONE.negate();
+                row[artificialIndex] = BigInteger.ONE;
+                basis[i] = artificialIndex++;
+            } else {
+                row[artificialIndex] = BigInteger.ONE;
+                basis[i] = artificialIndex++;
+            }
+            row[cols - 1] = scaled(c.rhs, scale);
+
+            for (int j = 0; j < cols; j++) {
+                tableau.set(i, j, row[j]);
+                if (c.type != Constraint.Type.LE)
+                    phaseOne[j] = phaseOne[j].subtract(row[j]);
+            }
+        }
+
+        for (int j = 0; j < cols; j++) {
+            tableau.set(rows - 1, j, phaseOne[j]);
+        }
+
+        return artificialVars;
+    }
+
+    // Objective row scaled by objectiveScale and the tableau denominator
+    private void resetObjective(LinearProgram lp) {
+        objectiveScale = BigInteger.ONE;
+        for (Rational r : lp.objective) {
+            objectiveScale = lcm(objectiveScale, r.denominator());
+        }
+        BigInteger denominator = tableau.denominator();
+
+        for (int j = 0; j < cols; j++) {
+            BigInteger value = BigInteger.ZERO;
+            if (j < numVarsOriginal)
+                value = scaled(lp.objective[j], objectiveScale).multiply(denominator).negate();
+            for (int i = 0; i < basis.length; i++) {
+                int var = basis[i];
+                if (var < numVarsOriginal)
+                    value = value.add(scaled(lp.objective[var], objectiveScale).multiply(tableau.get(i, j)));
+            }
+            tableau.set(rows - 1, j, value);
+        }
+    }
+
+    private LPResult unfinished(LPResult otherwise) {
+        if (cancelled)
+            return LPResult.CANCELLED;
+        return steps >= maxSteps ? LPResult.TIMEOUT : otherwise;
+    }
+
+    // Returns true when successfully optimized
+    private boolean optimize() {
+        while (true) {
+            steps++;
+            int pivotCol = findEntering();
+            if (pivotCol == -1)
+                return true; // Finished
+            int pivotRow = findLeaving(pivotCol);
+            if (pivotRow == -1)
+                return false; // Unbounded
+            tableau.pivot(pivotRow, pivotCol);
+            basis[pivotRow] = pivotCol;
+
+            if (steps >= maxSteps || cancelled)
+                return false; // Timeout or cancelled
+        }
+    }
+
+    // Entries share a positive denominator, so they compare as integers
+    private int findEntering() {
+        int pivotCol = -1;
+        for (int j = 0; j < cols - 1; j++) {
+            if (tableau.signum(rows - 1, j) < 0
+                    && (pivotCol == -1 || tableau.compare(rows - 1, j, rows - 1, pivotCol) < 0)) {
+                pivotCol = j;
+            }
+        }
+        return pivotCol;
+    }
+
+    // The denominator cancels in the ratios, rhs[i] / T[i][col] < rhs[k] / T[k][col]
+    // is compared as rhs[i] * T[k][col] < rhs[k] * T[i][col]
+    private int findLeaving(int pivotCol) {
+        int pivotRow = -1;
+        for (int i = 0; i < rows - 1; i++) {
+            if (tableau.signum(i, pivotCol) > 0) {
+                if (pivotRow == -1
+                        || tableau.compareProducts(i, cols - 1, pivotRow, pivotCol, pivotRow, cols - 1, i, pivotCol) < 0) {
+                    pivotRow = i;
+                }
+            }
+        }
+        return pivotRow;
+    }
+
+    private LPResult extractSolution(LinearProgram lp) {
+        BigInteger denominator = tableau.denominator();
+        Rational[] result = new Rational[lp.objective.length];
+        Arrays.fill(result, Rational.ZERO);
+        for (int i = 0; i < basis.length; i++) {
+            int var = basis[i];
+            if (var < result.length) {
+                result[var] = new Rational(tableau.get(i, cols - 1), denominator);
+            }
+        }
+        Rational objective = new Rational(tableau.get(rows - 1, cols - 1), denominator.multiply(objectiveScale));
+        if (!lp.maximize) {
+            objective = objective.negate();
+        }
+
+        return new LPResult(result, objective);
+    }
+
+    private static BigInteger scaled(Rational r, BigInteger scale) {
+        return r.numerator().multiply(scale.divide(r.denominator()));
+    }
+
+    private static BigInteger lcm(BigInteger a, BigInteger b) {
+        return a.divide(a.gcd(b)).multiply(b);
+    }
+}
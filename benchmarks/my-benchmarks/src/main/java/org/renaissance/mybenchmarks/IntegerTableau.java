@@ -0,0 +1,379 @@
+package org.renaissance.mybenchmarks;
+
+import java.math.BigInteger;
+import java.util.Arrays;
+
+// Integer simplex tableau whose entries all share one positive denominator.
+// The magnitudes of each row are packed into a single int[] arena of
+// little-endian 32-bit limbs, indexed by per-entry offset and signed length
+// (the sign of the length is the sign of the entry, 0 means zero). A row thus
+// costs a few arrays instead of several objects per entry, and the pivot
+// kernel works on the limbs directly.
+//
+// Pivoting is fraction-free (Edmonds): every entry stays a subdeterminant of
+// the initial integer matrix, so the update only needs multiplication,
+// subtraction and an exact division by the previous denominator, never a gcd.
+final class IntegerTableau {
+    private static final long MASK = 0xFFFFFFFFL;
+
+    private final int rows;
+    private int cols;
+
+    private final int[][] limbs;
+    private final int[][] spareLimbs;
+    private final int[] used;
+    private final int[][] offsets;
+    private final int[][] lengths;
+
+    // Common denominator, always positive
+    private int[] denominator = { 1 };
+
+    // Scratch space for the pivot kernel
+    private int[] factor = new int[0];
+    private int[] pivot = new int[0];
+    private int[] productA = new int[0];
+    private int[] productB = new int[0];
+    private int[] divisor = new int[0];
+    private int divisorLength;
+    private int divisorShift;
+    private int divisorInverse;
+
+    IntegerTableau(int rows, int cols) {
+        this.rows = rows;
+        this.cols = cols;
+        limbs = new int[rows][cols * 2];
+        spareLimbs = new int[rows][cols * 2];
+        used = new int[rows];
+        offsets = new int[rows][cols];
+        lengths = new int[rows][cols];
+    }
+
+    int cols() {
+        return cols;
+    }
+
+    BigInteger denominator() {
+        return toBigInteger(denominator, 0, denominator.length);
+    }
+
+    // Only meant for building the initial tableau, overwritten values stay in the arena.
+    void set(int i, int j, BigInteger value) {
+        int[] magnitude = toLimbs(value.abs());
+        int at = reserve(i, magnitude.length);
+        System.arraycopy(magnitude, 0, limbs[i], at, magnitude.length);
+        offsets[i][j] = at;
+        lengths[i][j] = value.signum() * magnitude.length;
+    }
+
+    BigInteger get(int i, int j) {
+        int length = lengths[i][j];
+        BigInteger magnitude = toBigInteger(limbs[i], offsets[i][j], Math.abs(length));
+        return length < 0 ? magnitude.negate() : magnitude;
+    }
+
+    int signum(int i, int j) {
+        return Integer.signum(lengths[i][j]);
+    }
+
+    // Compares entries (i, j) and (k, l)
+    int compare(int i, int j, int k, int l) {
+        int a = lengths[i][j];
+        int b = lengths[k][l];
+        if (Integer.signum(a) != Integer.signum(b))
+            return Integer.compare(Integer.signum(a), Integer.signum(b));
+        int cmp = compareMagnitudes(limbs[i], offsets[i][j], Math.abs(a), limbs[k], offsets[k][l], Math.abs(b));
+        return a < 0 ? -cmp : cmp;
+    }
+
+    // Compares the products (a, b) * (c, d) and (e, f) * (g, h) of entries
+    int compareProducts(int a, int b, int c, int d, int e, int f, int g, int h) {
+        int left = signum(a, b) * signum(c, d);
+        int right = signum(e, f) * signum(g, h);
+        if (left != right)
+            return Integer.compare(left, right);
+        if (left == 0)
+            return 0;
+
+        productA = ensure(productA, Math.abs(lengths[a][b]) + Math.abs(lengths[c][d]));
+        int leftLength = multiply(limbs[a], offsets[a][b], Math.abs(lengths[a][b]),
+                limbs[c], offsets[c][d], Math.abs(lengths[c][d]), productA, 0);
+        productB = ensure(productB, Math.abs(lengths[e][f]) + Math.abs(lengths[g][h]));
+        int rightLength = multiply(limbs[e], offsets[e][f], Math.abs(lengths[e][f]),
+                limbs[g], offsets[g][h], Math.abs(lengths[g][h]), productB, 0);
+        int cmp = compareMagnitudes(productA, 0, leftLength, productB, 0, rightLength);
+        return left < 0 ? -cmp : cmp;
+    }
+
+    // Drops count columns in front of the last one (the rhs)
+    void removeColumns(int count) {
+        for (int i = 0; i < rows; i++) {
+            offsets[i][cols - count - 1] = offsets[i][cols - 1];
+            lengths[i][cols - count - 1] = lengths[i][cols - 1];
+        }
+        cols -= count;
+    }
+
+    // Fraction-free pivot on (r, s). With p = T[r][s] and d the current denominator,
+    // every other row becomes (T[i][j] * |p| - sgn(p) * T[i][s] * T[r][j]) / d, the
+    // pivot row is multiplied by sgn(p) and |p| becomes the new denominator.
+    void pivot(int r, int s) {
+        int pivotLength = lengths[r][s];
+        int pivotSign = Integer.signum(pivotLength);
+        int pivotSize = Math.abs(pivotLength);
+        pivot = ensure(pivot, pivotSize);
+        System.arraycopy(limbs[r], offsets[r][s], pivot, 0, pivotSize);
+        prepareDivisor();
+
+        for (int i = 0; i < rows; i++) {
+            if (i != r)
+                eliminate(i, r, s, pivotSize, pivotSign);
+        }
+
+        if (pivotSign < 0) {
+            for (int j = 0; j < cols; j++) {
+                lengths[r][j] = -lengths[r][j];
+            }
+        }
+        denominator = Arrays.copyOf(pivot, pivotSize);
+    }
+
+    private void eliminate(int i, int r, int s, int pivotSize, int pivotSign) {
+        int factorLength = lengths[i][s];
+        int factorSize = Math.abs(factorLength);
+        factor = ensure(factor, factorSize);
+        System.arraycopy(limbs[i], offsets[i][s], factor, 0, factorSize);
+        // Sign of the subtracted term before the sign of T[r][j]
+        int termSign = -pivotSign * Integer.signum(factorLength);
+
+        int[] source = limbs[i];
+        int[] target = spareLimbs[i];
+        int at = 0;
+        for (int j = 0; j < cols; j++) {
+            int aLength = lengths[i][j];
+            int rowLength = lengths[r][j];
+            if (j == s || (aLength == 0 && (rowLength == 0 || factorSize == 0))) {
+                offsets[i][j] = at;
+                lengths[i][j] = 0;
+                continue;
+            }
+
+            // productA = |T[i][j]| * |p|, productB = |T[i][s]| * |T[r][j]|
+            int aSize = Math.abs(aLength);
+            int rowSize = Math.abs(rowLength);
+            productA = ensure(productA, Math.max(aSize + pivotSize, factorSize + rowSize) + 1);
+            productB = ensure(productB, factorSize + rowSize);
+            int lengthA = aSize == 0 ? 0 : multiply(source, offsets[i][j], aSize, pivot, 0, pivotSize, productA, 0);
+            int signA = Integer.signum(aLength);
+
+            int lengthB = rowSize == 0 || factorSize == 0 ? 0
+                    : multiply(factor, 0, factorSize, limbs[r], offsets[r][j], rowSize, productB, 0);
+            int signB = termSign * Integer.signum(rowLength);
+
+            // productA = productA + productB (signed)
+            int length;
+            int sign;
+            if (lengthB == 0) {
+                length = lengthA;
+                sign = signA;
+            } else if (lengthA == 0) {
+                System.arraycopy(productB, 0, productA, 0, lengthB);
+                length = lengthB;
+                sign = signB;
+            } else if (signA == signB) {
+                length = add(productA, lengthA, productB, lengthB);
+                sign = signA;
+            } else if (compareMagnitudes(productA, 0, lengthA, productB, 0, lengthB) >= 0) {
+                length = subtract(productA, lengthA, productB, lengthB);
+                sign = signA;
+            } else {
+                length = subtract(productB, lengthB, productA, lengthA);
+                System.arraycopy(productB, 0, productA, 0, length);
+                sign = signB;
+            }
+
+            if (length == 0) {
+                offsets[i][j] = at;
+                lengths[i][j] = 0;
+                continue;
+            }
+
+            if (target.length < at + length) {
+                target = Arrays.copyOf(target, Math.max(2 * target.length, at + length));
+            }
+            int quotient = divideExact(productA, length, target, at);
+            offsets[i][j] = at;
+            lengths[i][j] = sign * quotient;
+            at += quotient;
+        }
+
+        spareLimbs[i] = source;
+        limbs[i] = target;
+        used[i] = at;
+    }
+
+    // Splits the denominator into 2^shift * odd part and inverts the lowest
+    // odd limb modulo 2^32 for Hensel division.
+    private void prepareDivisor() {
+        int zeroLimbs = 0;
+        while (denominator[zeroLimbs] == 0) {
+            zeroLimbs++;
+        }
+        int bits = Integer.numberOfTrailingZeros(denominator[zeroLimbs]);
+        divisorShift = zeroLimbs * 32 + bits;
+        divisor = ensure(divisor, denominator.length);
+        divisorLength = shiftRight(denominator, denominator.length, divisorShift, divisor);
+
+        int d = divisor[0];
+        int inverse = d; // correct to 3 bits, each step doubles that
+        for (int k = 0; k < 4; k++) {
+            inverse *= 2 - d * inverse;
+        }
+        divisorInverse = inverse;
+    }
+
+    // Divides the magnitude in value by the denominator, which must divide it
+    // exactly. Writes the quotient to out at the given offset and returns its length.
+    private int divideExact(int[] value, int length, int[] out, int at) {
+        length = shiftRight(value, length, divisorShift, value);
+        if (divisorLength == 1 && divisor[0] == 1) {
+            System.arraycopy(value, 0, out, at, length);
+            return length;
+        }
+
+        // Hensel division from the lowest limb, working modulo 2^(32 * quotientLength)
+        int quotientLength = length - divisorLength + 1;
+        for (int i = 0; i < quotientLength; i++) {
+            int q = value[i] * divisorInverse;
+            out[at + i] = q;
+            long qv = q & MASK;
+            long carry = 0;
+            long borrow = 0;
+            for (int k = 0; i + k < quotientLength; k++) {
+                if (k >= divisorLength && carry == 0 && borrow == 0)
+                    break;
+                long product = (k < divisorLength ? qv * (divisor[k] & MASK) : 0) + carry;
+                carry = product >>> 32;
+                long t = (value[i + k] & MASK) - (product & MASK) - borrow;
+                value[i + k] = (int) t;
+                borrow = t < 0 ? 1 : 0;
+            }
+        }
+
+        while (quotientLength > 0 && out[at + quotientLength - 1] == 0) {
+            quotientLength--;
+        }
+        return quotientLength;
+    }
+
+    private int reserve(int i, int size) {
+        if (limbs[i].length < used[i] + size) {
+            limbs[i] = Arrays.copyOf(limbs[i], Math.max(2 * limbs[i].length, used[i] + size));
+        }
+        int at = used[i];
+        used[i] += size;
+        return at;
+    }
+
+    // Limb kernels. Magnitudes are little-endian and normalized (no zero top limb).
+
+    private static int[] ensure(int[] buffer, int size) {
+        return buffer.length >= size ? buffer : new int[Math.max(size, 2 * buffer.length)];
+    }
+
+    private static int multiply(int[] a, int ao, int al, int[] b, int bo, int bl, int[] out, int oo) {
+        Arrays.fill(out, oo, oo + al + bl, 0);
+        for (int i = 0; i < al; i++) {
+            long ai = a[ao + i] & MASK;
+            long carry = 0;
+            for (int j = 0; j < bl; j++) {
+                long t = ai * (b[bo + j] & MASK) + (out[oo + i + j] & MASK) + carry;
+                out[oo + i + j] = (int) t;
+                carry = t >>> 32;
+            }
+            out[oo + i + bl] = (int) carry;
+        }
+        int length = al + bl;
+        while (length > 0 && out[oo + length - 1] == 0) {
+            length--;
+        }
+        return length;
+    }
+
+    // a += b, a must have room for one more limb than the longer operand
+    private static int add(int[] a, int al, int[] b, int bl) {
+        int length = Math.max(al, bl);
+        long carry = 0;
+        for (int k = 0; k < length; k++) {
+            long t = (k < al ? a[k] & MASK : 0) + (k < bl ? b[k] & MASK : 0) + carry;
+            a[k] = (int) t;
+            carry = t >>> 32;
+        }
+        if (carry != 0) {
+            a[length++] = (int) carry;
+        }
+        return length;
+    }
+
+    // a -= b, requires a >= b
+    private static int subtract(int[] a, int al, int[] b, int bl) {
+        long borrow = 0;
+        for (int k = 0; k < al; k++) {
+            long t = (a[k] & MASK) - (k < bl ? b[k] & MASK : 0) - borrow;
+            a[k] = (int) t;
+            borrow = t < 0 ? 1 : 0;
+        }
+        int length = al;
+        while (length > 0 && a[length - 1] == 0) {
+            length--;
+        }
+        return length;
+    }
+
+    private static int compareMagnitudes(int[] a, int ao, int al, int[] b, int bo, int bl) {
+        if (al != bl)
+            return Integer.compare(al, bl);
+        for (int k = al - 1; k >= 0; k--) {
+            int cmp = Integer.compareUnsigned(a[ao + k], b[bo + k]);
+            if (cmp != 0)
+                return cmp;
+        }
+        return 0;
+    }
+
+    // out = value >> shift, out may be value itself
+    private static int shiftRight(int[] value, int length, int shift, int[] out) {
+        int limbShift = shift >>> 5;
+        int bitShift = shift & 31;
+        int outLength = length - limbShift;
+        for (int k = 0; k < outLength; k++) {
+            int low = value[k + limbShift] >>> bitShift;
+            int high = bitShift == 0 || k + limbShift + 1 >= length ? 0 : value[k + limbShift + 1] << (32 - bitShift);
+            out[k] = low | high;
+        }
+        while (outLength > 0 && out[outLength - 1] == 0) {
+            outLength--;
+        }
+        return outLength;
+    }
+
+    private static int[] toLimbs(BigInteger magnitude) {
+        int[] result = new int[(magnitude.bitLength() + 31) / 32];
+        for (int k = 0; k < result.length; k++) {
+            result[k] = magnitude.shiftRight(32 * k).intValue();
+        }
+        return result;
+    }
+
+    private static BigInteger toBigInteger(int[] magnitude, int offset, int length) {
+        byte[] bytes = new byte[4 * length + 1];
+        for (int k = 0; k < length; k++) {
+            int limb = magnitude[offset + k];
+            int at = bytes.length - 4 * k;
+            bytes[at - 1] = (byte) limb;
+            bytes[at - 2] = (byte) (limb >>> 8);
+            bytes[at - 3] = (byte) (limb >>> 16);
+            bytes[at - 4] = (byte) (limb >>> 24);
+        }
+        return new BigInteger(bytes);
+    }
+}
@@ -22,6 +22,23 @@ public class LCG {
         return currentState;
     }
 
+    // Advance by n steps (n taken as unsigned) in O(log n). Composes the affine
+    // map x -> MULTIPLIER * x + INCREMENT with itself by repeated squaring.
+    public void skip(long n) {
+        long multiplier = 1, increment = 0;
+        long stepMultiplier = MULTIPLIER, stepIncrement = INCREMENT;
+        while (n != 0) {
+            if ((n & 1) != 0) {
+                multiplier *= stepMultiplier;
+                increment = increment * stepMultiplier + stepIncrement;
+            }
+            stepIncrement *= stepMultiplier + 1;
+            stepMultiplier *= stepMultiplier;
+            n >>>= 1;
+        }
+        currentState = multiplier * currentState + increment;
+    }
+
     // Get random number in [0, 1).
     public double nextDouble() {
         return ((double) (step() & Long.MAX_VALUE)) / Long.MAX_VALUE;
@@ -0,0 +1,163 @@
+package org.renaissance.mybenchmarks;
+
+import java.io.IOException;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import org.renaissance.mybenchmarks.SimplexSolver.Constraint;
+import org.renaissance.mybenchmarks.SimplexSolver.LinearProgram;
+
+// Read-only corpus of linear programs in a binary file written by
+// LPCorpusWriter. The file is memory-mapped and a program is only decoded when
+// it is requested, directly from the mapping.
+//
+// Layout, fixed-size fields big-endian:
+//   header    magic (int), program count (int), index offset (long)
+//   programs  one record per program
+//   index     offset of every program record (long each)
+//
+// Program record, all integers unsigned LEB128 varints:
+//   flags (bit 0 set when maximizing), variables n, constraints m, non-zeros k
+//   objective       n values, in the form the program was created with
+//   types           m bytes, Constraint.Type ordinals
+//   right-hand side m values
+//   row lengths     m counts (CSR row pointers as differences)
+//   columns         k indexes, in each row the first is absolute and the others
+//                   are gaps minus one from the previous column
+//   coefficients    k values
+//
+// A value is a varint whose two low bits select the encoding. Numerators in
+// [-2^61, 2^61) are stored zigzag-encoded in the remaining bits, followed by
+// nothing (INTEGER) or a varint denominator (FRACTION). Anything larger is a
+// BIG escape followed by numerator and denominator as length-prefixed two's
+// complement bytes.
+public final class LPCorpus {
+
+    static final int MAGIC = 0x4c504331; // "LPC1"
+    static final int HEADER_SIZE = 16;
+
+    static final int INTEGER = 0;
+    static final int FRACTION = 1;
+    static final int BIG = 2;
+
+    static final int MAXIMIZE = 1;
+
+    private final ByteBuffer data;
+    private final int count;
+    private final int indexOffset;
+
+    private LPCorpus(ByteBuffer data) throws IOException {
+        this.data = data;
+        if (data.capacity() < HEADER_SIZE || data.getInt(0) != MAGIC)
+            throw new IOException("Not an LP corpus.");
+        count = data.getInt(4);
+        long offset = data.getLong(8);
+        if (count < 0 || offset < HEADER_SIZE || offset + 8L * count > data.capacity())
+            throw new IOException("Corrupted LP corpus index.");
+        indexOffset = (int) offset;
+    }
+
+    public static LPCorpus open(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            // The mapping stays valid after the channel is closed
+            if (channel.size() > Integer.MAX_VALUE)
+                throw new IOException("LP corpus larger than 2 GiB: " + path);
+            MappedByteBuffer data = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            return new LPCorpus(data);
+        }
+    }
+
+    public int size() {
+        return count;
+    }
+
+    // Decodes the program at the given index, safe to call from several threads
+    public LinearProgram get(int index) {
+        if (index < 0 || index >= count)
+            throw new IndexOutOfBoundsException("Program " + index + " of " + count);
+        ByteBuffer in = data.duplicate();
+        in.position((int) data.getLong(indexOffset + 8 * index));
+
+        int flags = readInt(in);
+        int variables = readInt(in);
+        int constraints = readInt(in);
+        int nonZeros = readInt(in);
+
+        Rational[] objective = new Rational[variables];
+        for (int j = 0; j < variables; j++) {
+            objective[j] = readValue(in);
+        }
+        LinearProgram lp = new LinearProgram(objective, (flags & MAXIMIZE) != 0);
+
+        Constraint.Type[] types = new Constraint.Type[constraints];
+        for (int i = 0; i < constraints; i++) {
+            types[i] = Constraint.Type.values()[in.get()];
+        }
+        Rational[] rhs = new Rational[constraints];
+        for (int i = 0; i < constraints; i++) {
+            rhs[i] = readValue(in);
+        }
+        int[] rowLengths = new int[constraints];
+        for (int i = 0; i < constraints; i++) {
+            rowLengths[i] = readInt(in);
+        }
+
+        // Columns precede the values, so read them from a second cursor
+        ByteBuffer values = in.duplicate();
+        for (int k = 0; k < nonZeros; k++) {
+            readVarint(values);
+        }
+
+        for (int i = 0; i < constraints; i++) {
+            Rational[] coefficients = new Rational[variables];
+            int column = -1;
+            for (int k = 0; k < rowLengths[i]; k++) {
+                column += readInt(in) + 1;
+                coefficients[column] = readValue(values);
+            }
+            for (int j = 0; j < variables; j++) {
+                if (coefficients[j] == null)
+                    coefficients[j] = Rational.ZERO;
+            }
+            lp.addConstraint(new Constraint(coefficients, types[i], rhs[i]));
+        }
+        return lp;
+    }
+
+    static long readVarint(ByteBuffer in) {
+        long value = 0;
+        for (int shift = 0;; shift += 7) {
+            byte b = in.get();
+            value |= (long) (b & 0x7f) << shift;
+            if (b >= 0)
+                return value;
+        }
+    }
+
+    private static int readInt(ByteBuffer in) {
+        return Math.toIntExact(readVarint(in));
+    }
+
+    private static Rational readValue(ByteBuffer in) {
+        long head = readVarint(in);
+        int kind = (int) (head & 3);
+        if (kind == BIG)
+            return new Rational(readBigInteger(in), readBigInteger(in));
+
+        long zigzag = head >>> 2;
+        long numerator = (zigzag >>> 1) ^ -(zigzag & 1);
+        if (kind == FRACTION)
+            return new Rational(numerator, readVarint(in));
+        return numerator == 0 ? Rational.ZERO : new Rational(numerator);
+    }
+
+    private static BigInteger readBigInteger(ByteBuffer in) {
+        byte[] bytes = new byte[readInt(in)];
+        in.get(bytes);
+        return new BigInteger(bytes);
+    }
+}
@@ -0,0 +1,154 @@
+package org.renaissance.mybenchmarks;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+import org.renaissance.mybenchmarks.SimplexSolver.Constraint;
+import org.renaissance.mybenchmarks.SimplexSolver.LinearProgram;
+
+// Writes linear programs into a corpus file in the format described in LPCorpus.
+// The index is kept in memory and written with the header on close.
+public final class LPCorpusWriter implements Closeable {
+
+    // Exposes the internal array so a record is written without copying it
+    private static final class RecordBuffer extends ByteArrayOutputStream {
+        ByteBuffer contents() {
+            return ByteBuffer.wrap(buf, 0, count);
+        }
+    }
+
+    private final FileChannel channel;
+    private final RecordBuffer record = new RecordBuffer();
+    private long[] offsets = new long[16];
+    private int count = 0;
+    private long position = LPCorpus.HEADER_SIZE;
+
+    public LPCorpusWriter(Path path) throws IOException {
+        channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING);
+    }
+
+    public void write(LinearProgram lp) throws IOException {
+        int variables = lp.objective.length;
+        int constraints = lp.constraints.size();
+        int nonZeros = 0;
+        for (Constraint c : lp.constraints) {
+            for (Rational r : c.coefficients) {
+                if (r.signum() != 0)
+                    nonZeros++;
+            }
+        }
+
+        record.reset();
+        writeVarint(lp.maximize ? LPCorpus.MAXIMIZE : 0);
+        writeVarint(variables);
+        writeVarint(constraints);
+        writeVarint(nonZeros);
+        // LinearProgram keeps a minimized objective negated
+        for (Rational r : lp.objective) {
+            writeValue(lp.maximize ? r : r.negate());
+        }
+        for (Constraint c : lp.constraints) {
+            record.write(c.type.ordinal());
+        }
+        for (Constraint c : lp.constraints) {
+            writeValue(c.rhs);
+        }
+        for (Constraint c : lp.constraints) {
+            int length = 0;
+            for (Rational r : c.coefficients) {
+                if (r.signum() != 0)
+                    length++;
+            }
+            writeVarint(length);
+        }
+        for (Constraint c : lp.constraints) {
+            int previous = -1;
+            for (int j = 0; j < c.coefficients.length; j++) {
+                if (c.coefficients[j].signum() != 0) {
+                    writeVarint(j - previous - 1);
+                    previous = j;
+                }
+            }
+        }
+        for (Constraint c : lp.constraints) {
+            for (Rational r : c.coefficients) {
+                if (r.signum() != 0)
+                    writeValue(r);
+            }
+        }
+
+        if (count == offsets.length)
+            offsets = Arrays.copyOf(offsets, 2 * count);
+        offsets[count++] = position;
+        position += writeFully(record.contents(), position);
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            ByteBuffer index = ByteBuffer.allocate(8 * count);
+            for (int i = 0; i < count; i++) {
+                index.putLong(offsets[i]);
+            }
+            index.flip();
+            writeFully(index, position);
+
+            ByteBuffer header = ByteBuffer.allocate(LPCorpus.HEADER_SIZE);
+            header.putInt(LPCorpus.MAGIC).putInt(count).putLong(position);
+            header.flip();
+            writeFully(header, 0);
+        } finally {
+            channel.close();
+        }
+    }
+
+    private int writeFully(ByteBuffer buffer, long at) throws IOException {
+        int written = 0;
+        while (buffer.hasRemaining()) {
+            written += channel.write(buffer, at + written);
+        }
+        return written;
+    }
+
+    private void writeVarint(long value) {
+        while ((value & ~0x7fL) != 0) {
+            record.write((int) (value & 0x7f) | 0x80);
+            value >>>= 7;
+        }
+        record.write((int) value);
+    }
+
+    private void writeValue(Rational r) {
+        BigInteger numerator = r.numerator();
+        BigInteger denominator = r.denominator();
+        if (numerator.bitLength() > 61 || denominator.bitLength() >= Long.SIZE) {
+            writeVarint(LPCorpus.BIG);
+            writeBigInteger(numerator);
+            writeBigInteger(denominator);
+            return;
+        }
+
+        long n = numerator.longValue();
+        long zigzag = (n << 1) ^ (n >> 63);
+        if (denominator.equals(BigInteger.ONE)) {
+            writeVarint(zigzag << 2 | LPCorpus.INTEGER);
+        } else {
+            writeVarint(zigzag << 2 | LPCorpus.FRACTION);
+            writeVarint(denominator.longValue());
+        }
+    }
+
+    private void writeBigInteger(BigInteger value) {
+        byte[] bytes = value.toByteArray();
+        writeVarint(bytes.length);
+        record.write(bytes, 0, bytes.length);
+    }
+}
@@ -0,0 +1,124 @@
+package org.renaissance.mybenchmarks;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+import org.renaissance.mybenchmarks.SimplexSolver.Constraint;
+import org.renaissance.mybenchmarks.SimplexSolver.LinearProgram;
+
+// Generates the random linear programs of the simplex benchmark from one LCG
+// stream. Programs can also be generated in parallel: the length of a program
+// in the stream depends on its values, so a cheap scan of the stream (which
+// only steps the LCG, without building rows) records the state at the start
+// of every program. Each program is then built by a task from its own LCG
+// starting at that state, which yields exactly the programs of the
+// sequential stream.
+final class LPGenerator {
+
+    static final int VARIABLES = 50;
+    static final int CONSTRAINTS = 50;
+    private static final double NONZERO_COEFFICIENT_CHANCE = 0.2;
+    private static final double EQ_CHANCE = 0.05;
+    private static final double GE_CHANCE = 0.1;
+
+    private final LCG lcg;
+
+    LPGenerator(long seed) {
+        lcg = new LCG(seed);
+    }
+
+    // Next program of the stream
+    LinearProgram next() {
+        LinearProgram lp = new LinearProgram(randomObjective(lcg), true);
+        for (int i = 0; i < CONSTRAINTS; i++) {
+            lp.addConstraint(randomConstraint(lcg));
+        }
+        return lp;
+    }
+
+    // Next count programs of the stream, built on the executor
+    List<LinearProgram> next(int count, ExecutorService executor) throws InterruptedException {
+        // States at the start of every program
+        long[] programStates = new long[count];
+        for (int p = 0; p < count; p++) {
+            programStates[p] = lcg.currentState;
+            skipProgram(lcg);
+        }
+
+        List<Future<LinearProgram>> programs = new ArrayList<>(count);
+        for (int p = 0; p < count; p++) {
+            LPGenerator generator = new LPGenerator(programStates[p]);
+            programs.add(executor.submit(() -> generator.next()));
+        }
+
+        try {
+            List<LinearProgram> result = new ArrayList<>(count);
+            for (Future<LinearProgram> program : programs) {
+                result.add(program.get());
+            }
+            return result;
+        } catch (ExecutionException e) {
+            throw new RuntimeException("Program generation failed.", e.getCause());
+        } finally {
+            programs.forEach(f -> f.cancel(true));
+        }
+    }
+
+    // Consumes the same steps as next() without building the program
+    private static void skipProgram(LCG lcg) {
+        lcg.skip(VARIABLES);
+        for (int i = 0; i < CONSTRAINTS; i++) {
+            skipConstraint(lcg);
+        }
+    }
+
+    private static Rational[] randomObjective(LCG lcg) {
+        Rational[] objective = new Rational[VARIABLES];
+        for (int i = 0; i < VARIABLES; i++) {
+            objective[i] = randomCoefficient(lcg, 0);
+        }
+        return objective;
+    }
+
+    private static Constraint randomConstraint(LCG lcg) {
+        Rational[] coefficients = new Rational[VARIABLES];
+        for (int j = 0; j < VARIABLES; j++) {
+            if (lcg.nextDouble() < NONZERO_COEFFICIENT_CHANCE)
+                coefficients[j] = randomCoefficient(lcg, 64);
+            else
+                coefficients[j] = Rational.ZERO;
+        }
+        Constraint.Type type = randomConstraintType(lcg);
+        Rational rhs = randomCoefficient(lcg, 128);
+        return new Constraint(coefficients, type, rhs);
+    }
+
+    // Consumes the same steps as randomConstraint without building the row
+    private static void skipConstraint(LCG lcg) {
+        for (int j = 0; j < VARIABLES; j++) {
+            if (lcg.nextDouble() < NONZERO_COEFFICIENT_CHANCE) {
+                lcg.step();
+            }
+        }
+        lcg.skip(2); // Type and rhs
+    }
+
+    private static Constraint.Type randomConstraintType(LCG lcg) {
+        double rand = lcg.nextDouble();
+        if (rand < EQ_CHANCE) {
+            return Constraint.Type.EQ;
+        } else if (rand < EQ_CHANCE + GE_CHANCE) {
+            return Constraint.Type.GE;
+        } else {
+            return Constraint.Type.LE;
+        }
+    }
+
+    // Generates a random integer in the range [x-128, x+127].
+    private static Rational randomCoefficient(LCG lcg, int x) {
+        return new Rational((lcg.step() >> 56) + x);
+    }
+}
@@ -0,0 +1,170 @@
+package org.renaissance.mybenchmarks;
+
+import java.math.BigInteger;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeSet;
+
+import org.renaissance.mybenchmarks.SimplexSolver.LPResult;
+import org.renaissance.mybenchmarks.SimplexSolver.LinearProgram;
+
+// Bounded cache of solver results keyed by program fingerprint. The size limit
+// is in estimated bytes of the cached results, and entries are evicted least
+// recently used first (LRU) or least frequently used first with ties broken by
+// recency (LFU). Timed out and cancelled results are not cached since they
+// depend on the solver limits rather than on the program.
+//
+// Cached results are shared between callers and must not be modified.
+public final class LPResultCache {
+
+    public enum Policy {
+        LRU, LFU
+    }
+
+    private static final class Entry {
+        final Fingerprint key;
+        final LPResult result;
+        final long size;
+        long frequency;
+        long lastUse;
+
+        Entry(Fingerprint key, LPResult result, long size) {
+            this.key = key;
+            this.result = result;
+            this.size = size;
+        }
+    }
+
+    // Rough footprints on a 64-bit JVM with compressed references
+    private static final long ENTRY_OVERHEAD = 128;
+    private static final long RATIONAL_SIZE = 40;
+    private static final long BIG_INTEGER_SIZE = 56;
+
+    private final long capacity;
+    private final Map<Fingerprint, Entry> entries = new HashMap<>();
+    // Ordered by eviction priority, first is evicted first
+    private final TreeSet<Entry> order;
+    private long size = 0;
+    private long clock = 0;
+
+    private long hits = 0;
+    private long misses = 0;
+    private long evictions = 0;
+
+    public LPResultCache(Policy policy, long capacity) {
+        if (capacity <= 0)
+            throw new IllegalArgumentException("Cache capacity must be positive.");
+        this.capacity = capacity;
+
+        Comparator<Entry> byRecency = Comparator.comparingLong(e -> e.lastUse);
+        if (policy == Policy.LFU)
+            order = new TreeSet<>(Comparator.<Entry>comparingLong(e -> e.frequency).thenComparing(byRecency));
+        else
+            order = new TreeSet<>(byRecency);
+    }
+
+    // Returns the cached result for the program, or solves it with the solver
+    // and caches the result.
+    public LPResult solve(LinearProgram lp, LPSolver solver) {
+        Fingerprint key = Fingerprint.of(lp);
+        LPResult result = get(key);
+        if (result != null)
+            return result;
+
+        result = solver.solve(lp);
+        if (result != LPResult.TIMEOUT && result != LPResult.CANCELLED)
+            put(key, result);
+        return result;
+    }
+
+    public synchronized LPResult get(Fingerprint key) {
+        Entry e = entries.get(key);
+        if (e == null) {
+            misses++;
+            return null;
+        }
+        hits++;
+        touch(e);
+        return e.result;
+    }
+
+    public synchronized void put(Fingerprint key, LPResult result) {
+        Entry old = entries.remove(key);
+        if (old != null) {
+            order.remove(old);
+            size -= old.size;
+        }
+
+        Entry e = new Entry(key, result, sizeOf(result));
+        if (e.size > capacity)
+            return;
+        while (size + e.size > capacity) {
+            Entry victim = order.pollFirst();
+            entries.remove(victim.key);
+            size -= victim.size;
+            evictions++;
+        }
+
+        if (old != null)
+            e.frequency = old.frequency;
+        touch(e);
+        entries.put(key, e);
+        size += e.size;
+    }
+
+    private void touch(Entry e) {
+        order.remove(e);
+        e.frequency++;
+        e.lastUse = ++clock;
+        order.add(e);
+    }
+
+    public synchronized long hits() {
+        return hits;
+    }
+
+    public synchronized long misses() {
+        return misses;
+    }
+
+    public synchronized long evictions() {
+        return evictions;
+    }
+
+    public synchronized int entries() {
+        return entries.size();
+    }
+
+    // Estimated bytes held by the cached results
+    public synchronized long size() {
+        return size;
+    }
+
+    public long capacity() {
+        return capacity;
+    }
+
+    private static long sizeOf(LPResult result) {
+        long size = ENTRY_OVERHEAD;
+        if (result.isFinite()) {
+            size += 16 + 4L * result.solution.length + sizeOf(result.objectiveValue);
+            for (Rational r : result.solution) {
+                size += sizeOf(r);
+            }
+        }
+        return size;
+    }
+
+    private static long sizeOf(Rational r) {
+        BigInteger numerator = r.numerator();
+        BigInteger denominator = r.denominator();
+        if (numerator.bitLength() < Long.SIZE - 1 && denominator.bitLength() < Long.SIZE - 1)
+            return RATIONAL_SIZE;
+        return RATIONAL_SIZE + sizeOf(numerator) + sizeOf(denominator);
+    }
+
+    private static long sizeOf(BigInteger value) {
+        return BIG_INTEGER_SIZE + 4L * ((value.bitLength() + 31) / 32);
+    }
+}
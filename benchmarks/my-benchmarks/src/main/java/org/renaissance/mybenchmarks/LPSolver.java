@@ -0,0 +1,14 @@
+package org.renaissance.mybenchmarks;
+
+import org.renaissance.mybenchmarks.SimplexSolver.LPResult;
+import org.renaissance.mybenchmarks.SimplexSolver.LinearProgram;
+
+// Common interface of the simplex solver engines.
+public interface LPSolver {
+
+    LPResult solve(LinearProgram lp);
+
+    // Asks a running solve() to stop and return LPResult.CANCELLED.
+    // Can be called from any thread, a cancelled solver stays cancelled.
+    void cancel();
+}
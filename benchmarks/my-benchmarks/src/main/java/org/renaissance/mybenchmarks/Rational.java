@@ -4,11 +4,27 @@ import java.math.BigInteger;
 import java.util.Objects;
 
 public final class Rational implements Comparable<Rational> {
+    // Values whose reduced numerator and denominator both fit in a long are kept
+    // in num/den and use long arithmetic. Once an operation overflows, the result
+    // switches to the BigInteger fields (num/den are then unused). The choice is
+    // canonical, so equal values always have the same representation.
+    private final long num;
+    private final long den;
     private final BigInteger numerator;
     private final BigInteger denominator;
 
-    public static final Rational ZERO = new Rational(BigInteger.ZERO, BigInteger.ONE);
-    public static final Rational ONE = new Rational(BigInteger.ONE, BigInteger.ONE);
+    // Marks an overflowed long operation, never a valid small numerator or denominator
+    private static final long OVERFLOW = Long.MIN_VALUE;
+
+    public static final Rational ZERO = new Rational(0, 1, null, null);
+    public static final Rational ONE = new Rational(1, 1, null, null);
+
+    private Rational(long num, long den, BigInteger numerator, BigInteger denominator) {
+        this.num = num;
+        this.den = den;
+        this.numerator = numerator;
+        this.denominator = denominator;
+    }
 
     public Rational(BigInteger numerator, BigInteger denominator) {
         if (denominator.equals(BigInteger.ZERO)) {
@@ -19,8 +35,19 @@ public final class Rational implements Comparable<Rational> {
         BigInteger gcd = numerator.gcd(denominator);
         BigInteger sign = denominator.signum() < 0 ? BigInteger.valueOf(-1) : BigInteger.ONE;
 
-        this.numerator = numerator.divide(gcd).multiply(sign);
-        this.denominator = denominator.divide(gcd).abs();
+        BigInteger n = numerator.divide(gcd).multiply(sign);
+        BigInteger d = denominator.divide(gcd).abs();
+        if (n.bitLength() < Long.SIZE && d.bitLength() < Long.SIZE && n.longValue() != OVERFLOW) {
+            this.num = n.longValue();
+            this.den = d.longValue();
+            this.numerator = null;
+            this.denominator = null;
+        } else {
+            this.num = 0;
+            this.den = 0;
+            this.numerator = n;
+            this.denominator = d;
+        }
     }
 
     public Rational(long numerator, long denominator) {
@@ -31,45 +58,160 @@ public final class Rational implements Comparable<Rational> {
         this(BigInteger.valueOf(number), BigInteger.ONE);
     }
 
+    // Reduces n/d (d > 0) computed in long arithmetic.
+    private static Rational small(long n, long d) {
+        long gcd = gcd(Math.abs(n), d);
+        return new Rational(n / gcd, d / gcd, null, null);
+    }
+
+    private static long gcd(long a, long b) {
+        while (b != 0) {
+            long t = a % b;
+            a = b;
+            b = t;
+        }
+        return a;
+    }
+
+    private static long multiply(long a, long b) {
+        long product = a * b;
+        return Math.multiplyHigh(a, b) == (product >> 63) ? product : OVERFLOW;
+    }
+
+    private static long add(long a, long b) {
+        long sum = a + b;
+        return ((a ^ sum) & (b ^ sum)) < 0 ? OVERFLOW : sum;
+    }
+
+    private static long subtract(long a, long b) {
+        long difference = a - b;
+        return ((a ^ b) & (a ^ difference)) < 0 ? OVERFLOW : difference;
+    }
+
+    private boolean isSmall() {
+        return numerator == null;
+    }
+
+    private BigInteger bigNumerator() {
+        return isSmall() ? BigInteger.valueOf(num) : numerator;
+    }
+
+    private BigInteger bigDenominator() {
+        return isSmall() ? BigInteger.valueOf(den) : denominator;
+    }
+
     public Rational add(Rational other) {
-        BigInteger num = this.numerator.multiply(other.denominator).add(other.numerator.multiply(this.denominator));
-        BigInteger den = this.denominator.multiply(other.denominator);
+        if (this.isSmall() && other.isSmall()) {
+            long a = multiply(this.num, other.den);
+            long b = multiply(other.num, this.den);
+            long d = multiply(this.den, other.den);
+            if (a != OVERFLOW && b != OVERFLOW && d != OVERFLOW) {
+                long n = add(a, b);
+                if (n != OVERFLOW)
+                    return small(n, d);
+            }
+        }
+
+        BigInteger num = this.bigNumerator().multiply(other.bigDenominator())
+                .add(other.bigNumerator().multiply(this.bigDenominator()));
+        BigInteger den = this.bigDenominator().multiply(other.bigDenominator());
         return new Rational(num, den);
     }
 
     public Rational subtract(Rational other) {
-        BigInteger num = this.numerator.multiply(other.denominator)
-                .subtract(other.numerator.multiply(this.denominator));
-        BigInteger den = this.denominator.multiply(other.denominator);
+        if (this.isSmall() && other.isSmall()) {
+            long a = multiply(this.num, other.den);
+            long b = multiply(other.num, this.den);
+            long d = multiply(this.den, other.den);
+            if (a != OVERFLOW && b != OVERFLOW && d != OVERFLOW) {
+                long n = subtract(a, b);
+                if (n != OVERFLOW)
+                    return small(n, d);
+            }
+        }
+
+        BigInteger num = this.bigNumerator().multiply(other.bigDenominator())
+                .subtract(other.bigNumerator().multiply(this.bigDenominator()));
+        BigInteger den = this.bigDenominator().multiply(other.bigDenominator());
         return new Rational(num, den);
     }
 
     public Rational multiply(Rational other) {
-        return new Rational(this.numerator.multiply(other.numerator), this.denominator.multiply(other.denominator));
+        if (this.isSmall() && other.isSmall()) {
+            if (this.num == 0 || other.num == 0)
+                return ZERO;
+            // Cancel crosswise first so that the products stay reduced
+            long g1 = gcd(Math.abs(this.num), other.den);
+            long g2 = gcd(Math.abs(other.num), this.den);
+            long n = multiply(this.num / g1, other.num / g2);
+            long d = multiply(this.den / g2, other.den / g1);
+            if (n != OVERFLOW && d != OVERFLOW)
+                return new Rational(n, d, null, null);
+        }
+
+        return new Rational(this.bigNumerator().multiply(other.bigNumerator()),
+                this.bigDenominator().multiply(other.bigDenominator()));
     }
 
     public Rational divide(Rational other) {
-        if (other.numerator.equals(BigInteger.ZERO)) {
+        if (other.signum() == 0) {
             throw new ArithmeticException("Division by zero.");
         }
-        return new Rational(this.numerator.multiply(other.denominator), this.denominator.multiply(other.numerator));
+        return multiply(other.reciprocal());
+    }
+
+    private Rational reciprocal() {
+        if (isSmall()) {
+            return num < 0 ? new Rational(-den, -num, null, null) : new Rational(den, num, null, null);
+        }
+        return new Rational(denominator, numerator);
     }
 
     public Rational negate() {
-        return new Rational(numerator.negate(), denominator);
+        if (isSmall()) {
+            return new Rational(-num, den, null, null);
+        }
+        return new Rational(0, 0, numerator.negate(), denominator);
+    }
+
+    public int signum() {
+        return isSmall() ? Long.signum(num) : numerator.signum();
+    }
+
+    public BigInteger numerator() {
+        return bigNumerator();
+    }
+
+    public BigInteger denominator() {
+        return bigDenominator();
     }
 
     public BigInteger toBigInteger() {
+        if (isSmall()) {
+            return BigInteger.valueOf(num / den);
+        }
         return numerator.divide(denominator);
     }
 
     public double toDouble() {
+        if (isSmall()) {
+            return (double) num / (double) den;
+        }
         return numerator.doubleValue() / denominator.doubleValue();
     }
 
     @Override
     public int compareTo(Rational other) {
-        return this.numerator.multiply(other.denominator).compareTo(other.numerator.multiply(this.denominator));
+        if (this.isSmall() && other.isSmall()) {
+            // Compare the 128-bit cross products
+            long a = this.num * other.den;
+            long b = other.num * this.den;
+            long aHigh = Math.multiplyHigh(this.num, other.den);
+            long bHigh = Math.multiplyHigh(other.num, this.den);
+            return aHigh != bHigh ? Long.compare(aHigh, bHigh) : Long.compareUnsigned(a, b);
+        }
+        return this.bigNumerator().multiply(other.bigDenominator())
+                .compareTo(other.bigNumerator().multiply(this.bigDenominator()));
     }
 
     @Override
@@ -77,16 +219,25 @@ public final class Rational implements Comparable<Rational> {
         if (!(obj instanceof Rational))
             return false;
         Rational other = (Rational) obj;
+        if (this.isSmall() != other.isSmall())
+            return false;
+        if (isSmall())
+            return num == other.num && den == other.den;
         return numerator.equals(other.numerator) && denominator.equals(other.denominator);
     }
 
     @Override
     public int hashCode() {
+        if (isSmall())
+            return 31 * Long.hashCode(num) + Long.hashCode(den);
         return Objects.hash(numerator, denominator);
     }
 
     @Override
     public String toString() {
+        if (isSmall()) {
+            return den == 1 ? Long.toString(num) : num + "/" + den;
+        }
         return denominator.equals(BigInteger.ONE) ? numerator.toString() : numerator + "/" + denominator;
     }
 
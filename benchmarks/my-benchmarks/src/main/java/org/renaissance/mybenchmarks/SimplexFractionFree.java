@@ -0,0 +1,46 @@
+package org.renaissance.mybenchmarks;
+
+import org.renaissance.Benchmark;
+import org.renaissance.Benchmark.Group;
+import org.renaissance.Benchmark.Licenses;
+import org.renaissance.Benchmark.Name;
+import org.renaissance.Benchmark.Parameter;
+import org.renaissance.Benchmark.Summary;
+import org.renaissance.BenchmarkContext;
+import org.renaissance.BenchmarkResult;
+import org.renaissance.License;
+
+@Name("simplex-fraction-free")
+@Group("my-benchmarks")
+@Summary("Solves random linear programs using the simplex method on a fraction-free integer tableau.")
+@Parameter(name = "program_count", defaultValue = "10", summary = "Number of linear programs to solve.")
+@Parameter(name = "seed", defaultValue = "42", summary = "Seed for the random number generator.")
+@Parameter(name = "generator_threads", defaultValue = "1", summary = "Number of threads generating the linear programs.")
+@Parameter(name = "corpus", defaultValue = "", summary = "Binary LP corpus to replay instead of the generated programs.")
+@Parameter(name = "result_cache", defaultValue = "none", summary = "Policy of the solve result cache kept across repetitions (none, lru or lfu).")
+@Parameter(name = "result_cache_size", defaultValue = "16777216", summary = "Size limit of the solve result cache in bytes.")
+@Licenses(License.MIT)
+public final class SimplexFractionFree implements Benchmark {
+
+    private final SimplexWorkload workload = new SimplexWorkload();
+
+    @Override
+    public void setUpBeforeAll(BenchmarkContext ctx) {
+        workload.setUpBeforeAll(ctx);
+    }
+
+    @Override
+    public void setUpBeforeEach(BenchmarkContext ctx) {
+        workload.setUpBeforeEach(ctx);
+    }
+
+    @Override
+    public void tearDownAfterAll(BenchmarkContext ctx) {
+        workload.tearDownAfterAll(ctx);
+    }
+
+    @Override
+    public BenchmarkResult run(BenchmarkContext ctx) {
+        return workload.run(() -> new FractionFreeSimplexSolver(SimplexWorkload.MAX_STEPS));
+    }
+}
@@ -0,0 +1,84 @@
+package org.renaissance.mybenchmarks;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.function.Supplier;
+
+import org.renaissance.mybenchmarks.SimplexSolver.LPResult;
+import org.renaissance.mybenchmarks.SimplexSolver.LinearProgram;
+
+// Races several solver configurations on the same linear program. The first
+// proven result (anything but a timeout) wins and the remaining solvers are
+// cancelled. The program is only read by the solvers, so it is shared.
+// A portfolio is an LPSolver itself, interrupting the thread waiting in solve()
+// cancels the race just like cancel() does.
+public class SimplexPortfolio implements LPSolver {
+
+    private final ExecutorService executor;
+    private final List<Supplier<LPSolver>> configurations;
+    // Solvers of the running race, guarded by this
+    private final List<LPSolver> running = new ArrayList<>();
+    private boolean cancelled;
+
+    public SimplexPortfolio(ExecutorService executor, List<Supplier<LPSolver>> configurations) {
+        if (configurations.isEmpty()) {
+            throw new IllegalArgumentException("Portfolio needs at least one configuration.");
+        }
+        this.executor = executor;
+        this.configurations = configurations;
+    }
+
+    @Override
+    public synchronized void cancel() {
+        cancelled = true;
+        for (LPSolver solver : running) {
+            solver.cancel();
+        }
+    }
+
+    @Override
+    public LPResult solve(LinearProgram lp) {
+        List<LPSolver> solvers = new ArrayList<>();
+        CompletionService<LPResult> results = new ExecutorCompletionService<>(executor);
+        for (Supplier<LPSolver> configuration : configurations) {
+            LPSolver solver = configuration.get();
+            solvers.add(solver);
+            synchronized (this) {
+                running.add(solver);
+                if (cancelled)
+                    solver.cancel();
+            }
+            results.submit(() -> solver.solve(lp));
+        }
+
+        try {
+            for (int i = 0; i < solvers.size(); i++) {
+                LPResult next = results.take().get();
+                if (next != LPResult.TIMEOUT && next != LPResult.CANCELLED) {
+                    return next;
+                }
+            }
+            return isCancelled() ? LPResult.CANCELLED : LPResult.TIMEOUT;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return LPResult.CANCELLED;
+        } catch (ExecutionException e) {
+            throw new RuntimeException("Portfolio solver failed.", e.getCause());
+        } finally {
+            synchronized (this) {
+                for (LPSolver solver : solvers) {
+                    solver.cancel();
+                }
+                running.removeAll(solvers);
+            }
+        }
+    }
+
+    private synchronized boolean isCancelled() {
+        return cancelled;
+    }
+}
@@ -2,7 +2,14 @@ package org.renaissance.mybenchmarks;
 
 import java.util.*;
 
-public class SimplexSolver {
+public class SimplexSolver implements LPSolver {
+
+    // Rule for choosing the entering column in primal simplex.
+    // DANTZIG picks the most negative reduced cost, BLAND the lowest index
+    // (and breaks ratio ties by lowest basic variable), which cannot cycle.
+    public enum Pricing {
+        DANTZIG, BLAND
+    }
 
     public static class Constraint {
         public enum Type {
@@ -26,8 +33,12 @@ public class SimplexSolver {
         public boolean maximize; // if false, negate the result
 
         public LinearProgram(Rational[] objective, boolean maximize) {
-            this.objective = objective;
             this.maximize = maximize;
+            setObjective(objective);
+        }
+
+        public void setObjective(Rational[] objective) {
+            this.objective = objective;
             if (!maximize) {
                 for (int i = 0; i < objective.length; i++) {
                     objective[i] = objective[i].negate();
@@ -44,6 +55,7 @@ public class SimplexSolver {
         public static final LPResult INFEASIBLE = new LPResult(null, null);
         public static final LPResult UNBOUNDED = new LPResult(null, null);
         public static final LPResult TIMEOUT = new LPResult(null, null);
+        public static final LPResult CANCELLED = new LPResult(null, null);
         public Rational[] solution;
         public Rational objectiveValue;
 
@@ -57,6 +69,23 @@ public class SimplexSolver {
         }
     }
 
+    // Slack (+1) or surplus (-1) columns standing in for one constraint in the tableau.
+    private static final class Logicals {
+        static final Logicals NONE = new Logicals(new int[0], new int[0]);
+
+        final int[] columns;
+        final int[] signs;
+
+        Logicals(int[] columns, int[] signs) {
+            this.columns = columns;
+            this.signs = signs;
+        }
+
+        static Logicals of(int column, int sign) {
+            return new Logicals(new int[] { column }, new int[] { sign });
+        }
+    }
+
     private Rational[][] tableau;
     private int rows, cols;
     private int numVarsOriginal;
@@ -64,13 +93,137 @@ public class SimplexSolver {
     private boolean debug;
     private int steps = 0;
     private int maxSteps;
+    private final Pricing pricing;
+    private volatile boolean cancelled;
+
+    // State retained after solve() for incremental re-solving
+    private LinearProgram program;
+    private List<Logicals> logicals;
+    private boolean warm;
 
     public SimplexSolver(boolean debug, int maxSteps) {
+        this(debug, maxSteps, Pricing.DANTZIG);
+    }
+
+    public SimplexSolver(boolean debug, int maxSteps, Pricing pricing) {
         this.debug = debug;
         this.maxSteps = maxSteps;
+        this.pricing = pricing;
+    }
+
+    // Asks a running solve() or resolve() to stop at the next pivot and return
+    // LPResult.CANCELLED. Can be called from any thread, a cancelled solver
+    // stays cancelled.
+    public void cancel() {
+        cancelled = true;
     }
 
     public LPResult solve(LinearProgram lp) {
+        program = lp;
+        steps = 0;
+        LPResult result = solveFromScratch(lp);
+        warm = result.isFinite() && !hasStaleBasis();
+        return result;
+    }
+
+    // Adds a constraint to the last solved program. The new row is expressed in
+    // terms of the current basis with its slack basic, so the next resolve() only
+    // needs dual simplex pivots if the current solution violates it. Equality
+    // constraints are added as a pair of opposite inequalities.
+    public void addConstraint(Constraint c) {
+        program.addConstraint(c);
+        if (!warm)
+            return;
+
+        if (c.type == Constraint.Type.LE) {
+            logicals.add(Logicals.of(appendRow(c, 1), 1));
+        } else if (c.type == Constraint.Type.GE) {
+            logicals.add(Logicals.of(appendRow(c, -1), -1));
+        } else {
+            int le = appendRow(c, 1);
+            int ge = appendRow(c, -1);
+            logicals.add(new Logicals(new int[] { le, ge }, new int[] { 1, -1 }));
+        }
+    }
+
+    // Removes a constraint from the last solved program. A binding constraint
+    // first has its logical variable pivoted into the basis using a ratio test
+    // which keeps the remaining rows feasible.
+    public void removeConstraint(int index) {
+        program.constraints.remove(index);
+        if (!warm)
+            return;
+
+        Logicals removed = logicals.remove(index);
+        if (removed.columns.length == 0) {
+            // Equality rows of the original program lose their artificial
+            // columns after Phase I, so there is nothing to pivot on.
+            warm = false;
+            return;
+        }
+        for (int k = removed.columns.length - 1; k >= 0; k--) {
+            removeLogical(removed.columns[k]);
+        }
+    }
+
+    // Changes the right-hand side of a constraint of the last solved program.
+    // The tableau rhs moves along the column of the constraint's logical variable.
+    public void setRhs(int index, Rational rhs) {
+        Constraint c = program.constraints.get(index);
+        Rational delta = rhs.subtract(c.rhs);
+        c.rhs = rhs;
+        if (!warm)
+            return;
+
+        Logicals l = logicals.get(index);
+        if (l.columns.length == 0) {
+            warm = false;
+            return;
+        }
+        for (int k = 0; k < l.columns.length; k++) {
+            Rational shift = l.signs[k] > 0 ? delta : delta.negate();
+            for (int i = 0; i < rows; i++) {
+                tableau[i][cols - 1] = tableau[i][cols - 1].add(shift.multiply(tableau[i][l.columns[k]]));
+            }
+        }
+    }
+
+    // Replaces the objective of the last solved program, keeping the current basis.
+    public void setObjective(Rational[] objective) {
+        program.setObjective(objective);
+        if (warm)
+            resetObjective(program);
+    }
+
+    // Re-solves the last solved program after incremental changes. Starts from
+    // the retained tableau with dual simplex if some rhs went negative, or with
+    // primal simplex otherwise. Falls back to a full solve when the tableau
+    // cannot be reused (no optimal tableau is retained, a change touched an
+    // original equality row, or the basis is neither primal nor dual feasible).
+    public LPResult resolve() {
+        if (!warm)
+            return solve(program);
+
+        boolean primalFeasible = findDualLeaving() == -1;
+        boolean dualFeasible = findEntering() == -1;
+        if (!primalFeasible && !dualFeasible)
+            return solve(program);
+
+        steps = 0;
+
+        if (debug)
+            printTableau("Before re-solve");
+
+        LPResult result = reoptimize(primalFeasible);
+
+        if (debug)
+            printTableau("After re-solve");
+
+        warm = result.isFinite();
+        return result;
+    }
+
+    private LPResult solveFromScratch(LinearProgram lp) {
         int artificialVars = preprocess(lp);
 
         if (debug)
@@ -84,7 +237,7 @@ public class SimplexSolver {
                 printTableau("After Phase I");
 
             if (!finished)
-                return steps >= maxSteps ? LPResult.TIMEOUT : LPResult.UNBOUNDED;
+                return unfinished(LPResult.UNBOUNDED);
             if (!isFeasible())
                 return LPResult.INFEASIBLE;
             removeArtificialVariables(artificialVars);
@@ -102,37 +255,33 @@ public class SimplexSolver {
             printTableau("After Phase II");
 
         if (!finished)
-            return steps >= maxSteps ? LPResult.TIMEOUT : LPResult.UNBOUNDED;
+            return unfinished(LPResult.UNBOUNDED);
         return extractSolution(lp);
     }
 
     private int preprocess(LinearProgram lp) {
         numVarsOriginal = lp.objective.length;
 
-        // 1. Count slack/surplus and artificial variables
-        int slackVars = 0, artificialVars = 0;
+        logicals = new ArrayList<>();
+
+        // 1. Count slack/surplus variables
+        int slackVars = 0;
         for (Constraint c : lp.constraints) {
-            if (c.type == Constraint.Type.LE) {
-                slackVars++;
-            } else if (c.type == Constraint.Type.GE) {
+            if (c.type != Constraint.Type.EQ)
                 slackVars++;
-                artificialVars++;
-            } else if (c.type == Constraint.Type.EQ) {
-                artificialVars++;
-            }
         }
 
+        // Artificial columns are only added after the crash
         rows = lp.constraints.size() + 1;
-        cols = numVarsOriginal + slackVars + artificialVars + 1;
+        cols = numVarsOriginal + slackVars + 1;
         tableau = new Rational[rows][cols];
         basis = new int[rows - 1];
         for (int i = 0; i < rows; i++) {
             Arrays.fill(tableau[i], Rational.ZERO);
         }
 
-        // 2. Fill tableau
+        // 2. Fill tableau, GE and EQ rows start without a basic variable
         int slackIndex = numVarsOriginal;
-        int artificialIndex = numVarsOriginal + slackVars;
         for (int i = 0; i < lp.constraints.size(); i++) {
             Rational[] row = lp.constraints.get(i).coefficients;
             for (int j = 0; j < row.length; j++) {
@@ -143,23 +292,49 @@ public class SimplexSolver {
             if (type == Constraint.Type.LE) {
                 tableau[i][slackIndex] = Rational.ONE;
                 basis[i] = slackIndex;
+                logicals.add(Logicals.of(slackIndex, 1));
                 slackIndex++;
             } else if (type == Constraint.Type.GE) {
                 tableau[i][slackIndex] = new Rational(-1);
-                tableau[i][artificialIndex] = Rational.ONE;
-                basis[i] = artificialIndex;
-                artificialIndex++;
+                basis[i] = -1;
+                logicals.add(Logicals.of(slackIndex, -1));
                 slackIndex++;
             } else if (type == Constraint.Type.EQ) {
-                tableau[i][artificialIndex] = Rational.ONE;
-                basis[i] = artificialIndex;
-                artificialIndex++;
+                basis[i] = -1;
+                logicals.add(Logicals.NONE);
             }
 
             tableau[i][cols - 1] = lp.constraints.get(i).rhs;
         }
 
-        // 3. Build Phase I objective (sum of artificial vars)
+        // 3. Pivot structural variables into as many of them as possible
+        crash();
+
+        // 4. Add artificial variables to the remaining rows
+        int artificialVars = 0;
+        for (int var : basis) {
+            if (var == -1)
+                artificialVars++;
+        }
+        if (artificialVars > 0) {
+            int artificialIndex = cols - 1;
+            cols += artificialVars;
+            for (int i = 0; i < rows; i++) {
+                Rational[] row = Arrays.copyOf(tableau[i], cols);
+                Arrays.fill(row, cols - 1 - artificialVars, cols - 1, Rational.ZERO);
+                row[cols - 1] = tableau[i][cols - 1 - artificialVars];
+                tableau[i] = row;
+            }
+            for (int i = 0; i < rows - 1; i++) {
+                if (basis[i] == -1) {
+                    tableau[i][artificialIndex] = Rational.ONE;
+                    basis[i] = artificialIndex;
+                    artificialIndex++;
+                }
+            }
+        }
+
+        // 5. Build Phase I objective (sum of artificial vars)
         for (int j = 0; j < cols; j++) {
             boolean isArtificial = j >= numVarsOriginal + slackVars && j < cols - 1;
             tableau[rows - 1][j] = isArtificial ? Rational.ONE : Rational.ZERO;
@@ -176,6 +351,55 @@ public class SimplexSolver {
         return artificialVars;
     }
 
+    // Triangular crash (after Bixby): each row without a basic variable gets a
+    // structural column pivoted in, if one keeps every rhs non-negative. Sparse
+    // columns are preferred since they keep the crash basis close to triangular
+    // and their pivots change the fewest rows. Every row covered here saves an
+    // artificial variable and the Phase I pivots needed to drive it out.
+    private void crash() {
+        for (int i = 0; i < rows - 1; i++) {
+            if (basis[i] != -1)
+                continue;
+
+            // Columns basic in other rows are zero in this row, so are never chosen
+            int best = -1;
+            int bestCount = Integer.MAX_VALUE;
+            for (int j = 0; j < numVarsOriginal; j++) {
+                if (tableau[i][j].signum() == 0)
+                    continue;
+                int count = columnCount(j);
+                if (count < bestCount && keepsFeasible(i, j)) {
+                    best = j;
+                    bestCount = count;
+                }
+            }
+            if (best != -1)
+                pivot(i, best);
+        }
+    }
+
+    private int columnCount(int col) {
+        int count = 0;
+        for (int i = 0; i < rows - 1; i++) {
+            if (tableau[i][col].signum() != 0)
+                count++;
+        }
+        return count;
+    }
+
+    // Whether pivoting on (row, col) leaves the rhs of every row non-negative
+    private boolean keepsFeasible(int row, int col) {
+        Rational value = tableau[row][cols - 1].divide(tableau[row][col]);
+        if (value.signum() < 0)
+            return false;
+        for (int i = 0; i < rows - 1; i++) {
+            if (i != row && tableau[i][col].signum() != 0
+                    && tableau[i][col].multiply(value).compareTo(tableau[i][cols - 1]) > 0)
+                return false;
+        }
+        return true;
+    }
+
     private void removeArtificialVariables(int count) {
         Rational[][] newTab = new Rational[rows][cols - count];
         for (int i = 0; i < rows; i++) {
@@ -201,6 +425,117 @@ public class SimplexSolver {
         }
     }
 
+    // Artificial variables left basic at zero after Phase I point past the
+    // removed columns, which rules out modifying the tableau in place.
+    private boolean hasStaleBasis() {
+        for (int var : basis) {
+            if (var >= cols - 1)
+                return true;
+        }
+        return false;
+    }
+
+    // Appends the row sign * (coefficients, rhs) with a new basic logical variable.
+    // Returns the column of the logical variable.
+    private int appendRow(Constraint c, int sign) {
+        int logical = cols - 1;
+        cols++;
+        for (int i = 0; i < rows; i++) {
+            Rational[] row = Arrays.copyOf(tableau[i], cols);
+            row[cols - 1] = row[logical];
+            row[logical] = Rational.ZERO;
+            tableau[i] = row;
+        }
+
+        Rational[] newRow = new Rational[cols];
+        Arrays.fill(newRow, Rational.ZERO);
+        for (int j = 0; j < c.coefficients.length; j++) {
+            newRow[j] = sign > 0 ? c.coefficients[j] : c.coefficients[j].negate();
+        }
+        newRow[logical] = Rational.ONE;
+        newRow[cols - 1] = sign > 0 ? c.rhs : c.rhs.negate();
+
+        // Eliminate the current basic variables from the new row
+        for (int i = 0; i < rows - 1; i++) {
+            Rational factor = newRow[basis[i]];
+            if (!factor.equals(Rational.ZERO)) {
+                for (int j = 0; j < cols; j++) {
+                    newRow[j] = newRow[j].subtract(factor.multiply(tableau[i][j]));
+                }
+            }
+        }
+
+        Rational[][] newTab = Arrays.copyOf(tableau, rows + 1);
+        newTab[rows] = tableau[rows - 1];
+        newTab[rows - 1] = newRow;
+        tableau = newTab;
+        basis = Arrays.copyOf(basis, rows);
+        basis[rows - 1] = logical;
+        rows++;
+
+        return logical;
+    }
+
+    private void removeLogical(int col) {
+        int row = -1;
+        for (int i = 0; i < basis.length; i++) {
+            if (basis[i] == col)
+                row = i;
+        }
+        if (row == -1) {
+            row = findLeaving(col);
+            if (row == -1)
+                row = findLeavingDecreasing(col);
+            pivot(row, col);
+        }
+
+        // The logical is now basic in row, so both can be dropped
+        Rational[][] newTab = new Rational[rows - 1][];
+        int[] newBasis = new int[rows - 2];
+        for (int i = 0, k = 0; i < rows; i++) {
+            if (i == row)
+                continue;
+            Rational[] r = new Rational[cols - 1];
+            System.arraycopy(tableau[i], 0, r, 0, col);
+            System.arraycopy(tableau[i], col + 1, r, col, cols - col - 1);
+            newTab[k] = r;
+            if (i < rows - 1)
+                newBasis[k] = basis[i] > col ? basis[i] - 1 : basis[i];
+            k++;
+        }
+        tableau = newTab;
+        basis = newBasis;
+        rows--;
+        cols--;
+
+        for (Logicals l : logicals) {
+            for (int k = 0; k < l.columns.length; k++) {
+                if (l.columns[k] > col)
+                    l.columns[k]--;
+            }
+        }
+    }
+
+    private LPResult reoptimize(boolean primalFeasible) {
+        if (!primalFeasible) {
+            boolean finished = optimizeDual();
+            if (!finished)
+                return unfinished(LPResult.INFEASIBLE);
+        }
+
+        boolean finished = optimize();
+        if (!finished)
+            return unfinished(LPResult.UNBOUNDED);
+        return extractSolution(program);
+    }
+
+    // Result of an optimize() call which did not finish
+    private LPResult unfinished(LPResult otherwise) {
+        if (cancelled)
+            return LPResult.CANCELLED;
+        return steps >= maxSteps ? LPResult.TIMEOUT : otherwise;
+    }
+
     private boolean isFeasible() {
         return tableau[rows - 1][cols - 1].equals(Rational.ZERO);
     }
@@ -217,8 +552,26 @@ public class SimplexSolver {
                 return false; // Unbounded
             pivot(pivotRow, pivotCol);
 
-            if (steps >= maxSteps)
-                return false; // Timeout
+            if (steps >= maxSteps || cancelled)
+                return false; // Timeout or cancelled
+        }
+    }
+
+    // Dual simplex, the objective row stays optimal while the rhs is repaired.
+    // Returns true when successfully optimized
+    private boolean optimizeDual() {
+        while (true) {
+            steps++;
+            int pivotRow = findDualLeaving();
+            if (pivotRow == -1)
+                return true; // Finished
+            int pivotCol = findDualEntering(pivotRow);
+            if (pivotCol == -1)
+                return false; // Infeasible
+            pivot(pivotRow, pivotCol);
+
+            if (steps >= maxSteps || cancelled)
+                return false; // Timeout or cancelled
         }
     }
 
@@ -227,6 +580,8 @@ public class SimplexSolver {
         int pivotCol = -1;
         for (int j = 0; j < cols - 1; j++) {
             if (tableau[rows - 1][j].compareTo(min) < 0) {
+                if (pricing == Pricing.BLAND)
+                    return j;
                 pivotCol = j;
                 min = tableau[rows - 1][j];
             }
@@ -240,6 +595,23 @@ public class SimplexSolver {
         for (int i = 0; i < rows - 1; i++) {
             if (tableau[i][pivotCol].compareTo(Rational.ZERO) > 0) {
                 Rational ratio = tableau[i][cols - 1].divide(tableau[i][pivotCol]);
+                int cmp = min == null ? -1 : ratio.compareTo(min);
+                if (cmp < 0 || (cmp == 0 && pricing == Pricing.BLAND && basis[i] < basis[pivotRow])) {
+                    min = ratio;
+                    pivotRow = i;
+                }
+            }
+        }
+        return pivotRow;
+    }
+
+    // Ratio test for a column entering at a negative value
+    private int findLeavingDecreasing(int pivotCol) {
+        Rational min = null;
+        int pivotRow = -1;
+        for (int i = 0; i < rows - 1; i++) {
+            if (tableau[i][pivotCol].compareTo(Rational.ZERO) < 0) {
+                Rational ratio = tableau[i][cols - 1].divide(tableau[i][pivotCol].negate());
                 if (min == null || ratio.compareTo(min) < 0) {
                     min = ratio;
                     pivotRow = i;
@@ -249,6 +621,33 @@ public class SimplexSolver {
         return pivotRow;
     }
 
+    private int findDualLeaving() {
+        Rational min = Rational.ZERO;
+        int pivotRow = -1;
+        for (int i = 0; i < rows - 1; i++) {
+            if (tableau[i][cols - 1].compareTo(min) < 0) {
+                pivotRow = i;
+                min = tableau[i][cols - 1];
+            }
+        }
+        return pivotRow;
+    }
+
+    private int findDualEntering(int pivotRow) {
+        Rational min = null;
+        int pivotCol = -1;
+        for (int j = 0; j < cols - 1; j++) {
+            if (tableau[pivotRow][j].compareTo(Rational.ZERO) < 0) {
+                Rational ratio = tableau[rows - 1][j].divide(tableau[pivotRow][j].negate());
+                if (min == null || ratio.compareTo(min) < 0) {
+                    min = ratio;
+                    pivotCol = j;
+                }
+            }
+        }
+        return pivotCol;
+    }
+
     private void pivot(int row, int col) {
         Rational pivot = tableau[row][col];
         for (int j = 0; j < cols; j++) {
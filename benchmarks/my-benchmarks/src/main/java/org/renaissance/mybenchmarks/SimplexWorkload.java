@@ -0,0 +1,189 @@
+package org.renaissance.mybenchmarks;
+
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Supplier;
+
+import org.renaissance.BenchmarkContext;
+import org.renaissance.BenchmarkResult;
+import org.renaissance.BenchmarkResult.Validators;
+import org.renaissance.mybenchmarks.SimplexSolver.LPResult;
+import org.renaissance.mybenchmarks.SimplexSolver.LinearProgram;
+
+// Shared part of the simplex benchmarks: generates or replays the programs,
+// solves them with the solver engine of the benchmark and validates the results.
+// Every simplex benchmark declares the parameters read here. This is not a
+// Benchmark itself, the build registers every class implementing it.
+final class SimplexWorkload {
+
+    static final int DEFAULT_PROGRAM_COUNT = 10;
+    static final long DEFAULT_SEED = 42;
+    static final int MAX_STEPS = 200;
+
+    // The expected values hold only for the default parameters.
+    private static final Rational EXPECTED_SUM = Rational.parse(
+            "2890528279780327546890920560296572053017582970462229169962737102270355639494297269989090972103025110388363/2775065187046933750458072200920143470609500555385545496730279581456018896727786579265533127822441171840");
+    private static final long EXPECTED_FEASIBLE = 3;
+    private static final long EXPECTED_INFEASIBLE = 7;
+    private static final long EXPECTED_UNBOUNDED = 0;
+    private static final long EXPECTED_TIMED_OUT = 0;
+
+    private LPGenerator generator;
+    private ExecutorService generatorPool;
+    private LPCorpus corpus;
+    private LPResultCache cache;
+    private BenchmarkContext context;
+    private long seed;
+    private int program_count;
+
+    void setUpBeforeAll(BenchmarkContext ctx) {
+        context = ctx;
+
+        int threads = ctx.parameter("generator_threads").toPositiveInteger();
+        if (threads > 1)
+            generatorPool = Executors.newFixedThreadPool(threads);
+
+        String corpusPath = ctx.parameter("corpus").value();
+        if (!corpusPath.isEmpty()) {
+            try {
+                corpus = LPCorpus.open(Paths.get(corpusPath));
+            } catch (IOException e) {
+                throw new RuntimeException(e);
+            }
+        }
+
+        String cachePolicy = ctx.parameter("result_cache").value();
+        if (!cachePolicy.equals("none")) {
+            long cacheSize = ctx.parameter("result_cache_size").toPositiveInteger();
+            cache = new LPResultCache(LPResultCache.Policy.valueOf(cachePolicy.toUpperCase()), cacheSize);
+        }
+    }
+
+    void setUpBeforeEach(BenchmarkContext ctx) {
+        seed = ctx.parameter("seed").toInteger();
+        generator = new LPGenerator(seed);
+
+        program_count = corpus != null ? corpus.size() : ctx.parameter("program_count").toPositiveInteger();
+    }
+
+    void tearDownAfterAll(BenchmarkContext ctx) {
+        if (generatorPool != null)
+            generatorPool.shutdownNow();
+    }
+
+    // Solves the programs one after another, each with a fresh solver
+    BenchmarkResult run(Supplier<LPSolver> solvers) {
+        // The parallel generator yields the same programs, all generated up front
+        List<LinearProgram> programs = corpus == null && generatorPool != null ? generateAll() : null;
+
+        List<LPResult> results = new ArrayList<>(program_count);
+        for (int i = 0; i < program_count; i++) {
+            LinearProgram lp;
+            if (corpus != null)
+                lp = corpus.get(i);
+            else
+                lp = programs != null ? programs.get(i) : generator.next();
+            results.add(solve(lp, solvers.get()));
+        }
+        return validate(results);
+    }
+
+    // Solves the programs concurrently on the executor, each with a fresh solver
+    BenchmarkResult run(Supplier<LPSolver> solvers, ExecutorService executor) {
+        List<Future<LPResult>> futures = new ArrayList<>(program_count);
+        List<LinearProgram> programs = corpus == null ? generateAll() : null;
+        for (int i = 0; i < program_count; i++) {
+            LinearProgram lp = corpus != null ? corpus.get(i) : programs.get(i);
+            LPSolver solver = solvers.get();
+            futures.add(executor.submit(() -> solve(lp, solver)));
+        }
+
+        try {
+            List<LPResult> results = new ArrayList<>(program_count);
+            for (Future<LPResult> future : futures) {
+                results.add(future.get());
+            }
+            return validate(results);
+        } catch (InterruptedException e) {
+            throw new RuntimeException(e);
+        } catch (ExecutionException e) {
+            throw new RuntimeException("Solver failed.", e.getCause());
+        } finally {
+            futures.forEach(f -> f.cancel(true));
+        }
+    }
+
+    private List<LinearProgram> generateAll() {
+        if (generatorPool == null) {
+            List<LinearProgram> programs = new ArrayList<>(program_count);
+            for (int i = 0; i < program_count; i++) {
+                programs.add(generator.next());
+            }
+            return programs;
+        }
+
+        try {
+            return generator.next(program_count, generatorPool);
+        } catch (InterruptedException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    // Each program is a request, the harness reports the latency distribution
+    private LPResult solve(LinearProgram lp, LPSolver solver) {
+        long start = System.nanoTime();
+        LPResult result = cache != null ? cache.solve(lp, solver) : solver.solve(lp);
+        context.recordLatency(System.nanoTime() - start);
+        return result;
+    }
+
+    // Each solved program is a unit of work
+    private BenchmarkResult validate(List<LPResult> results) {
+        context.reportWorkUnits(results.size());
+
+        Rational sum = Rational.ZERO;
+        long feasibleCount = 0;
+        long unboundedCount = 0;
+        long infeasibleCount = 0;
+        long timeoutCount = 0;
+        long cancelledCount = 0;
+
+        for (LPResult result : results) {
+            if (result == LPResult.INFEASIBLE) {
+                infeasibleCount++;
+            } else if (result == LPResult.UNBOUNDED) {
+                unboundedCount++;
+            } else if (result == LPResult.TIMEOUT) {
+                timeoutCount++;
+            } else if (result == LPResult.CANCELLED) {
+                cancelledCount++;
+            } else {
+                feasibleCount++;
+                sum = sum.add(result.objectiveValue);
+            }
+        }
+
+        // A cancelled solve has no result, the benchmark never cancels one itself
+        BenchmarkResult notCancelled = Validators.simple("solves cancelled", 0, cancelledCount);
+
+        if (corpus == null && program_count == DEFAULT_PROGRAM_COUNT && seed == DEFAULT_SEED) {
+            return Validators.compound(
+                    notCancelled,
+                    Validators.simple("real sum compared to expected sum", sum.compareTo(EXPECTED_SUM), 0),
+                    Validators.simple("expected feasible", EXPECTED_FEASIBLE, feasibleCount),
+                    Validators.simple("expected infeasible", EXPECTED_INFEASIBLE, infeasibleCount),
+                    Validators.simple("expected unbounded", EXPECTED_UNBOUNDED, unboundedCount),
+                    Validators.simple("expected timed out", EXPECTED_TIMED_OUT, timeoutCount));
+        }
+        return Validators.compound(
+                notCancelled,
+                Validators.simple("programs run", program_count,
+                        feasibleCount + infeasibleCount + unboundedCount + timeoutCount));
+    }
+}
@@ -0,0 +1,264 @@
+package org.renaissance.plugins.jfr;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Recording;
+import jdk.jfr.StackTrace;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.renaissance.Plugin;
+
+/**
+ * Records runtime activity during each measured operation with Java Flight
+ * Recorder and publishes a summary of the recorded events.
+ * <p>
+ * Each operation is recorded separately, so that the recording can be
+ * parsed right after the operation, when the harness requests the results.
+ * The recording contains a custom {@link OperationEvent} spanning the
+ * operation, and only events starting within the operation are counted.
+ * Safepoint durations span from the start of {@code jdk.SafepointBegin}
+ * (which covers only the synchronization) to the end of the matching
+ * {@code jdk.SafepointEnd} event.
+ * Starting, stopping, and parsing the recording happens outside the
+ * measured operation.
+ * <p>
+ * If a directory is given as the plugin argument, the recordings are kept
+ * there (as {@code <benchmark>-<opIndex>.jfr}) for inspection in other tools.
+ */
+public class Main implements Plugin,
+    Plugin.AfterOperationSetUpListener,
+    Plugin.BeforeOperationTearDownListener,
+    Plugin.MeasurementResultPublisher {
+
+  /** Runtime events summarized by the plugin, recorded regardless of duration. */
+  private static final String[] RECORDED_EVENTS = {
+    "jdk.GarbageCollection",
+    "jdk.Compilation",
+    "jdk.Deoptimization",
+    "jdk.SafepointBegin",
+    "jdk.SafepointEnd",
+    "jdk.JavaMonitorEnter",
+  };
+
+  @Name("org.renaissance.Operation")
+  @Label("Measured Operation")
+  @Category("Renaissance")
+  @Description("Execution of the measured operation of a benchmark")
+  @StackTrace(false)
+  static class OperationEvent extends Event {
+    @Label("Benchmark")
+    String benchmark;
+
+    @Label("Operation Index")
+    int opIndex;
+  }
+
+  /** Directory to keep the recordings in, or {@code null} to delete them. */
+  final Path outputDirectory;
+
+  Recording recording;
+  OperationEvent operationEvent;
+
+  public Main(String[] args) {
+    if (args.length > 1) {
+      warn("Ignoring extra arguments, expected at most an output directory.");
+    }
+
+    if (args.length > 0) {
+      outputDirectory = Paths.get(args[0]);
+      try {
+        Files.createDirectories(outputDirectory);
+      } catch (IOException e) {
+        throw new RuntimeException("failed to create JFR output directory", e);
+      }
+    } else {
+      outputDirectory = null;
+    }
+  }
+
+  @Override
+  public void afterOperationSetUp(String benchmark, int opIndex, boolean isLastOp) {
+    recording = new Recording();
+    recording.setName("renaissance-" + benchmark + "-" + opIndex);
+    recording.setToDisk(true);
+    for (String name : RECORDED_EVENTS) {
+      recording.enable(name).withThreshold(Duration.ZERO).withoutStackTrace();
+    }
+    recording.enable(OperationEvent.class);
+    recording.start();
+
+    operationEvent = new OperationEvent();
+    operationEvent.benchmark = benchmark;
+    operationEvent.opIndex = opIndex;
+    operationEvent.begin();
+  }
+
+  @Override
+  public void beforeOperationTearDown(String benchmark, int opIndex, long harnessDuration) {
+    operationEvent.commit();
+    recording.stop();
+  }
+
+  @Override
+  public void onMeasurementResultsRequested(String benchmark, int opIndex, Plugin.MeasurementResultListener dispatcher) {
+    Summary summary = new Summary();
+    try {
+      summary = summarizeRecording(benchmark, opIndex);
+    } catch (IOException e) {
+      warn("Failed to process recording of %s operation %d: %s", benchmark, opIndex, e.getMessage());
+    } finally {
+      recording.close();
+      recording = null;
+      operationEvent = null;
+    }
+
+    dispatcher.onMeasurementResult(benchmark, "jfr_gc_count", summary.gcCount);
+    dispatcher.onMeasurementResult(benchmark, "jfr_gc_pause_ns", summary.gcPauseNanos);
+    dispatcher.onMeasurementResult(benchmark, "jfr_gc_pause_max_ns", summary.gcPauseMaxNanos);
+    dispatcher.onMeasurementResult(benchmark, "jfr_compilation_count", summary.compilationCount);
+    dispatcher.onMeasurementResult(benchmark, "jfr_compilation_ns", summary.compilationNanos);
+    dispatcher.onMeasurementResult(benchmark, "jfr_deoptimization_count", summary.deoptimizationCount);
+    dispatcher.onMeasurementResult(benchmark, "jfr_safepoint_count", summary.safepointCount);
+    dispatcher.onMeasurementResult(benchmark, "jfr_safepoint_ns", summary.safepointNanos);
+    dispatcher.onMeasurementResult(benchmark, "jfr_monitor_enter_count", summary.monitorEnterCount);
+    dispatcher.onMeasurementResult(benchmark, "jfr_monitor_enter_ns", summary.monitorEnterNanos);
+  }
+
+  private Summary summarizeRecording(String benchmark, int opIndex) throws IOException {
+    Path file;
+    if (outputDirectory != null) {
+      file = outputDirectory.resolve(benchmark + "-" + opIndex + ".jfr");
+    } else {
+      file = Files.createTempFile("renaissance-jfr-", ".jfr");
+    }
+
+    try {
+      recording.dump(file);
+      return Summary.of(RecordingFile.readAllEvents(file));
+    } finally {
+      if (outputDirectory == null) {
+        Files.deleteIfExists(file);
+      }
+    }
+  }
+
+  /**
+   * Counts and total durations of runtime events which started within the
+   * measured operation. All values are -1 if the recording is not available.
+   */
+  private static class Summary {
+    long gcCount = -1;
+    long gcPauseNanos = -1;
+    long gcPauseMaxNanos = -1;
+    long compilationCount = -1;
+    long compilationNanos = -1;
+    long deoptimizationCount = -1;
+    long safepointCount = -1;
+    long safepointNanos = -1;
+    long monitorEnterCount = -1;
+    long monitorEnterNanos = -1;
+
+    /** End times of safepoints, by safepoint identifier. */
+    final Map<Long, Instant> safepointEnds = new HashMap<>();
+
+    static Summary of(List<RecordedEvent> events) throws IOException {
+      RecordedEvent operation = null;
+      for (RecordedEvent event : events) {
+        if (event.getEventType().getName().equals("org.renaissance.Operation")) {
+          operation = event;
+        }
+      }
+
+      if (operation == null) {
+        throw new IOException("operation event not found in recording");
+      }
+
+      Summary result = new Summary();
+      result.clear();
+
+      // The end of a safepoint may fall outside the operation.
+      for (RecordedEvent event : events) {
+        if (event.getEventType().getName().equals("jdk.SafepointEnd")) {
+          result.safepointEnds.put(event.getLong("safepointId"), event.getEndTime());
+        }
+      }
+
+      for (RecordedEvent event : events) {
+        if (isWithin(event.getStartTime(), operation)) {
+          result.add(event);
+        }
+      }
+
+      return result;
+    }
+
+    private static boolean isWithin(Instant time, RecordedEvent operation) {
+      return !time.isBefore(operation.getStartTime()) && !time.isAfter(operation.getEndTime());
+    }
+
+    private void clear() {
+      gcCount = 0;
+      gcPauseNanos = 0;
+      gcPauseMaxNanos = 0;
+      compilationCount = 0;
+      compilationNanos = 0;
+      deoptimizationCount = 0;
+      safepointCount = 0;
+      safepointNanos = 0;
+      monitorEnterCount = 0;
+      monitorEnterNanos = 0;
+    }
+
+    private void add(RecordedEvent event) {
+      switch (event.getEventType().getName()) {
+        case "jdk.GarbageCollection":
+          gcCount++;
+          gcPauseNanos += event.getDuration("sumOfPauses").toNanos();
+          gcPauseMaxNanos = Math.max(gcPauseMaxNanos, event.getDuration("longestPause").toNanos());
+          break;
+
+        case "jdk.Compilation":
+          compilationCount++;
+          compilationNanos += event.getDuration().toNanos();
+          break;
+
+        case "jdk.Deoptimization":
+          deoptimizationCount++;
+          break;
+
+        case "jdk.SafepointBegin":
+          safepointCount++;
+          Instant end = safepointEnds.get(event.getLong("safepointId"));
+          if (end != null) {
+            safepointNanos += Duration.between(event.getStartTime(), end).toNanos();
+          }
+          break;
+
+        case "jdk.JavaMonitorEnter":
+          monitorEnterCount++;
+          monitorEnterNanos += event.getDuration().toNanos();
+          break;
+
+        default:
+          break;
+      }
+    }
+  }
+
+  private void warn(String msg, Object... args) {
+    System.err.printf("[jfr plugin] WARNING: " + msg + "\n", args);
+  }
+}
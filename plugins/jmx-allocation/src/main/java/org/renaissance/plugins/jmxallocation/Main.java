@@ -0,0 +1,142 @@
+package org.renaissance.plugins.jmxallocation;
+
+import java.lang.management.ManagementFactory;
+import java.lang.reflect.Method;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import com.sun.management.ThreadMXBean;
+import org.renaissance.Plugin;
+
+/**
+ * Collects the number of bytes allocated in the heap during the measured
+ * operation via the HotSpot-specific {@link ThreadMXBean}.
+ * <p>
+ * On JDK 14+, the plugin uses {@code getTotalThreadAllocatedBytes()}, which
+ * also includes threads that terminated during the operation. On older JDKs
+ * (the method is looked up reflectively, because the plugin targets Java 8),
+ * the plugin sums per-thread differences for all live threads, which misses
+ * the allocations of threads that terminated before the end of the operation.
+ */
+public class Main implements Plugin,
+    Plugin.AfterOperationSetUpListener,
+    Plugin.BeforeOperationTearDownListener,
+    Plugin.MeasurementResultPublisher {
+
+  private final ThreadMXBean threadMXBean;
+
+  /** The {@code getTotalThreadAllocatedBytes()} method, if available. */
+  private final Method totalAllocatedBytesMethod;
+
+  private final boolean supported;
+
+  long totalBytesBefore;
+  long[] threadIdsBefore;
+  long[] threadBytesBefore;
+
+  long allocatedBytes;
+  long durationNanos;
+
+  public Main() {
+    java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+    if (bean instanceof ThreadMXBean) {
+      threadMXBean = (ThreadMXBean) bean;
+      supported = threadMXBean.isThreadAllocatedMemorySupported();
+    } else {
+      threadMXBean = null;
+      supported = false;
+    }
+
+    if (supported) {
+      if (!threadMXBean.isThreadAllocatedMemoryEnabled()) {
+        threadMXBean.setThreadAllocatedMemoryEnabled(true);
+      }
+    } else {
+      warn("Thread allocated memory measurement not supported, no metrics will be collected.");
+    }
+
+    totalAllocatedBytesMethod = supported ? findTotalAllocatedBytesMethod() : null;
+  }
+
+  private static Method findTotalAllocatedBytesMethod() {
+    try {
+      return ThreadMXBean.class.getMethod("getTotalThreadAllocatedBytes");
+    } catch (NoSuchMethodException e) {
+      return null;
+    }
+  }
+
+  @Override
+  public void afterOperationSetUp(String benchmark, int opIndex, boolean isLastOp) {
+    if (!supported) {
+      return;
+    }
+
+    if (totalAllocatedBytesMethod != null) {
+      totalBytesBefore = getTotalAllocatedBytes();
+    } else {
+      threadIdsBefore = threadMXBean.getAllThreadIds();
+      threadBytesBefore = threadMXBean.getThreadAllocatedBytes(threadIdsBefore);
+    }
+  }
+
+  @Override
+  public void beforeOperationTearDown(String benchmark, int opIndex, long harnessDuration) {
+    if (!supported) {
+      return;
+    }
+
+    if (totalAllocatedBytesMethod != null) {
+      allocatedBytes = getTotalAllocatedBytes() - totalBytesBefore;
+    } else {
+      long[] threadIds = threadMXBean.getAllThreadIds();
+      long[] threadBytes = threadMXBean.getThreadAllocatedBytes(threadIds);
+      allocatedBytes = sumThreadDeltas(threadIds, threadBytes);
+    }
+
+    durationNanos = harnessDuration;
+  }
+
+  private long getTotalAllocatedBytes() {
+    try {
+      return (Long) totalAllocatedBytesMethod.invoke(threadMXBean);
+    } catch (ReflectiveOperationException e) {
+      throw new RuntimeException("failed to get total allocated bytes", e);
+    }
+  }
+
+  private long sumThreadDeltas(long[] threadIds, long[] threadBytes) {
+    // Only allocate the lookup after the values have been sampled.
+    Map<Long, Long> bytesBefore = new HashMap<>();
+    for (int i = 0; i < threadIdsBefore.length; i++) {
+      bytesBefore.put(threadIdsBefore[i], threadBytesBefore[i]);
+    }
+
+    long result = 0;
+    for (int i = 0; i < threadIds.length; i++) {
+      // Threads that terminated (or were never measured) report -1.
+      if (threadBytes[i] >= 0) {
+        long before = bytesBefore.getOrDefault(threadIds[i], 0L);
+        result += threadBytes[i] - Math.max(0, before);
+      }
+    }
+
+    return result;
+  }
+
+  @Override
+  public void onMeasurementResultsRequested(String benchmark, int opIndex, Plugin.MeasurementResultListener dispatcher) {
+    if (!supported) {
+      return;
+    }
+
+    double seconds = (double) Math.max(1, durationNanos) / TimeUnit.SECONDS.toNanos(1);
+    dispatcher.onMeasurementResult(benchmark, "allocated_bytes", allocatedBytes);
+    dispatcher.onMeasurementResult(benchmark, "allocation_rate_bytes_per_s", (long) (allocatedBytes / seconds));
+  }
+
+  private void warn(String msg, Object... args) {
+    System.err.printf("[jmx-allocation plugin] WARNING: " + msg + "\n", args);
+  }
+}
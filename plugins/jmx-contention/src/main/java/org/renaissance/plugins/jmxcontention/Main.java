@@ -0,0 +1,260 @@
+package org.renaissance.plugins.jmxcontention;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadInfo;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+import org.renaissance.Plugin;
+
+/**
+ * Collects information about lock contention and thread states of the
+ * benchmark threads during the measured operation via {@link ThreadMXBean}
+ * with thread contention monitoring enabled. Benchmark threads are the
+ * threads in the thread group of the thread executing the operation (and
+ * its subgroups).
+ * <p>
+ * The number of times the threads blocked on a monitor or waited for
+ * a notification (and the time they spent doing so) is summed over the
+ * threads alive at the end of the operation, so threads terminating during
+ * the operation are not accounted for.
+ * <p>
+ * In addition, a sampler thread periodically records the state of the
+ * benchmark threads, and the monitors blocked threads are trying to enter.
+ * The monitors with the most blocked samples are printed at the end of
+ * each benchmark.
+ * <p>
+ * The plugin accepts the following arguments:
+ * <ul>
+ * <li>{@code interval=<ms>}, the sampling interval (10 ms by default),</li>
+ * <li>{@code top=<count>}, the number of monitors to report (5 by default).</li>
+ * </ul>
+ */
+public class Main implements Plugin,
+    Plugin.AfterOperationSetUpListener,
+    Plugin.BeforeOperationTearDownListener,
+    Plugin.BeforeBenchmarkTearDownListener,
+    Plugin.MeasurementResultPublisher {
+
+  /** Accumulated blocked and waited counts and times of a set of threads. */
+  private static class Counters {
+    final Map<Long, long[]> byThread = new HashMap<>();
+
+    static Counters of(ThreadInfo[] threads) {
+      Counters result = new Counters();
+      for (ThreadInfo thread : threads) {
+        if (thread != null) {
+          result.byThread.put(thread.getThreadId(), new long[] {
+            thread.getBlockedCount(), thread.getBlockedTime(),
+            thread.getWaitedCount(), thread.getWaitedTime()
+          });
+        }
+      }
+
+      return result;
+    }
+
+    /** Returns the sums of per-thread differences against the given counters. */
+    long[] deltaSince(Counters before) {
+      long[] result = new long[4];
+      for (Map.Entry<Long, long[]> thread : byThread.entrySet()) {
+        long[] beforeValues = before.byThread.get(thread.getKey());
+        for (int i = 0; i < result.length; i++) {
+          // Times are -1 if contention monitoring is disabled.
+          long beforeValue = beforeValues != null ? Math.max(0, beforeValues[i]) : 0;
+          result[i] += Math.max(0, thread.getValue()[i]) - beforeValue;
+        }
+      }
+
+      return result;
+    }
+  }
+
+  final long intervalMillis;
+  final int topCount;
+
+  final ThreadMXBean threadMXBean = ManagementFactory.getThreadMXBean();
+
+  final ScheduledExecutorService sampler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+    Thread thread = new Thread(runnable, "renaissance-contention-sampler");
+    thread.setDaemon(true);
+    return thread;
+  });
+
+  /** Blocked samples of each monitor during the current benchmark. */
+  final Map<String, long[]> monitorSamples = new HashMap<>();
+
+  /** Guards the sample counts and the state of sampling. */
+  final Object lock = new Object();
+
+  volatile ThreadGroup threadGroup;
+
+  ScheduledFuture<?> sampling;
+  boolean active;
+  long samplerThreadId = -1;
+
+  Counters countersBefore;
+  long[] operationDeltas;
+
+  long runnableSamples;
+  long blockedSamples;
+  long waitingSamples;
+
+  public Main(String[] args) {
+    long interval = 10;
+    int top = 5;
+
+    for (String arg : args) {
+      String[] parts = arg.split("=", 2);
+      if (parts.length != 2) {
+        warn("Ignoring argument '%s', expected <name>=<value>.", arg);
+        continue;
+      }
+
+      if (parts[0].equals("interval")) {
+        interval = Long.parseLong(parts[1]);
+      } else if (parts[0].equals("top")) {
+        top = Integer.parseInt(parts[1]);
+      } else {
+        warn("Ignoring unknown argument '%s'.", arg);
+      }
+    }
+
+    intervalMillis = Math.max(1, interval);
+    topCount = top;
+
+    if (threadMXBean.isThreadContentionMonitoringSupported()) {
+      threadMXBean.setThreadContentionMonitoringEnabled(true);
+    } else {
+      warn("Thread contention monitoring not supported, blocked and waited times will be 0.");
+    }
+  }
+
+  @Override
+  public void afterOperationSetUp(String benchmark, int opIndex, boolean isLastOp) {
+    synchronized (lock) {
+      runnableSamples = 0;
+      blockedSamples = 0;
+      waitingSamples = 0;
+      active = true;
+    }
+
+    threadGroup = Thread.currentThread().getThreadGroup();
+    countersBefore = Counters.of(threadMXBean.getThreadInfo(benchmarkThreadIds()));
+
+    sampling = sampler.scheduleAtFixedRate(this::sample, 0, intervalMillis, TimeUnit.MILLISECONDS);
+  }
+
+  @Override
+  public void beforeOperationTearDown(String benchmark, int opIndex, long harnessDuration) {
+    sampling.cancel(false);
+
+    // A sample in progress completes before the flag is cleared.
+    synchronized (lock) {
+      active = false;
+    }
+
+    Counters countersAfter = Counters.of(threadMXBean.getThreadInfo(benchmarkThreadIds()));
+    operationDeltas = countersAfter.deltaSince(countersBefore);
+  }
+
+  private void sample() {
+    if (samplerThreadId < 0) {
+      samplerThreadId = Thread.currentThread().getId();
+    }
+
+    ThreadInfo[] threads = threadMXBean.getThreadInfo(benchmarkThreadIds());
+
+    synchronized (lock) {
+      if (!active) {
+        return;
+      }
+
+      for (ThreadInfo thread : threads) {
+        if (thread == null) {
+          continue;
+        }
+
+        switch (thread.getThreadState()) {
+          case RUNNABLE:
+            runnableSamples++;
+            break;
+
+          case BLOCKED:
+            blockedSamples++;
+            if (thread.getLockName() != null) {
+              monitorSamples.computeIfAbsent(thread.getLockName(), k -> new long[1])[0]++;
+            }
+            break;
+
+          case WAITING:
+          case TIMED_WAITING:
+            waitingSamples++;
+            break;
+
+          default:
+            break;
+        }
+      }
+    }
+  }
+
+  private long[] benchmarkThreadIds() {
+    ThreadGroup group = threadGroup;
+
+    // Leave room for threads started after estimating the count.
+    Thread[] threads = new Thread[2 * group.activeCount() + 16];
+    int count = group.enumerate(threads, true);
+
+    long[] result = new long[count];
+    int resultCount = 0;
+    for (int i = 0; i < count; i++) {
+      if (threads[i].getId() != samplerThreadId) {
+        result[resultCount++] = threads[i].getId();
+      }
+    }
+
+    return Arrays.copyOf(result, resultCount);
+  }
+
+  @Override
+  public void onMeasurementResultsRequested(String benchmark, int opIndex, Plugin.MeasurementResultListener dispatcher) {
+    dispatcher.onMeasurementResult(benchmark, "jmx_contention_blocked_count", operationDeltas[0]);
+    dispatcher.onMeasurementResult(benchmark, "jmx_contention_blocked_ms", operationDeltas[1]);
+    dispatcher.onMeasurementResult(benchmark, "jmx_contention_waited_count", operationDeltas[2]);
+    dispatcher.onMeasurementResult(benchmark, "jmx_contention_waited_ms", operationDeltas[3]);
+
+    synchronized (lock) {
+      dispatcher.onMeasurementResult(benchmark, "jmx_contention_runnable_samples", runnableSamples);
+      dispatcher.onMeasurementResult(benchmark, "jmx_contention_blocked_samples", blockedSamples);
+      dispatcher.onMeasurementResult(benchmark, "jmx_contention_waiting_samples", waitingSamples);
+    }
+  }
+
+  @Override
+  public void beforeBenchmarkTearDown(String benchmark) {
+    synchronized (lock) {
+      List<Map.Entry<String, long[]>> monitors = new ArrayList<>(monitorSamples.entrySet());
+      monitors.sort((a, b) -> Long.compare(b.getValue()[0], a.getValue()[0]));
+
+      System.out.printf("Most contended monitors of %s (blocked samples):%n", benchmark);
+      for (Map.Entry<String, long[]> monitor : monitors.subList(0, Math.min(topCount, monitors.size()))) {
+        System.out.printf("%8d %s%n", monitor.getValue()[0], monitor.getKey());
+      }
+
+      monitorSamples.clear();
+    }
+  }
+
+  private void warn(String msg, Object... args) {
+    System.err.printf("[jmx-contention plugin] WARNING: " + msg + "\n", args);
+  }
+}
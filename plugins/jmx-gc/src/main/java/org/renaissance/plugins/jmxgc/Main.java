@@ -0,0 +1,207 @@
+package org.renaissance.plugins.jmxgc;
+
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.RuntimeMXBean;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+import javax.management.Notification;
+import javax.management.NotificationEmitter;
+import javax.management.openmbean.CompositeData;
+
+import com.sun.management.GarbageCollectionNotificationInfo;
+import com.sun.management.GcInfo;
+import org.renaissance.Plugin;
+
+/**
+ * Collects garbage collection pauses and concurrent collection cycles that
+ * started during the measured operation. The plugin subscribes to garbage
+ * collection notifications of all collector MX beans, so it does not depend
+ * on the collector in use.
+ * <p>
+ * ZGC and Shenandoah report their concurrent cycles through separate beans,
+ * e.g., "ZGC Cycles" or "Shenandoah Cycles". Collections reported by beans
+ * with a name ending with "Cycles" are counted as concurrent cycles, all
+ * others as pauses. In particular, the "G1 Concurrent GC" bean (JDK 20+)
+ * reports the Remark and Cleanup pauses of G1, not its concurrent cycles.
+ * <p>
+ * Notifications are delivered asynchronously, so when publishing results,
+ * the plugin waits (for at most {@link #NOTIFICATION_TIMEOUT_MS}) until it
+ * receives the notifications of all collections counted by the beans at
+ * the end of the operation. Note that the times reported in notifications
+ * have millisecond granularity.
+ */
+public class Main implements Plugin,
+    Plugin.AfterOperationSetUpListener,
+    Plugin.BeforeOperationTearDownListener,
+    Plugin.MeasurementResultPublisher {
+
+  private static final long NOTIFICATION_TIMEOUT_MS = 1000;
+
+  /** A single collection reported by a notification. */
+  private static class Collection {
+    final boolean concurrent;
+    final long startMillis;
+    final long durationMillis;
+
+    Collection(boolean concurrent, long startMillis, long durationMillis) {
+      this.concurrent = concurrent;
+      this.startMillis = startMillis;
+      this.durationMillis = durationMillis;
+    }
+  }
+
+  final RuntimeMXBean runtimeMXBean;
+  final List<GarbageCollectorMXBean> collectorMXBeans = new ArrayList<>();
+
+  /** Collections reported by notifications and not yet processed. */
+  final Queue<Collection> collections = new ConcurrentLinkedQueue<>();
+
+  /** Identifier (sequence number) of the last notified collection for each bean. */
+  final AtomicLongArray lastNotifiedIds;
+
+  long[] collectionCountsAfter;
+  long operationStartMillis;
+  long operationEndMillis;
+
+  public Main() {
+    runtimeMXBean = ManagementFactory.getRuntimeMXBean();
+
+    for (GarbageCollectorMXBean collector : ManagementFactory.getGarbageCollectorMXBeans()) {
+      if (collector instanceof NotificationEmitter) {
+        collectorMXBeans.add(collector);
+      } else {
+        warn("Garbage collector %s does not emit notifications, ignoring.", collector.getName());
+      }
+    }
+
+    lastNotifiedIds = new AtomicLongArray(collectorMXBeans.size());
+    collectionCountsAfter = new long[collectorMXBeans.size()];
+
+    for (int i = 0; i < collectorMXBeans.size(); i++) {
+      GarbageCollectorMXBean collector = collectorMXBeans.get(i);
+      boolean concurrent = isConcurrent(collector.getName());
+      ((NotificationEmitter) collector).addNotificationListener(
+        (notification, index) -> handleNotification(notification, (Integer) index, concurrent),
+        notification -> GarbageCollectionNotificationInfo.GARBAGE_COLLECTION_NOTIFICATION.equals(notification.getType()),
+        i
+      );
+
+      // Collections before the listener registration are never notified.
+      lastNotifiedIds.accumulateAndGet(i, collector.getCollectionCount(), Math::max);
+    }
+  }
+
+  private static boolean isConcurrent(String collectorName) {
+    return collectorName.endsWith("Cycles");
+  }
+
+  private void handleNotification(Notification notification, int index, boolean concurrent) {
+    GcInfo gcInfo = GarbageCollectionNotificationInfo.from(
+      (CompositeData) notification.getUserData()
+    ).getGcInfo();
+
+    collections.add(new Collection(concurrent, gcInfo.getStartTime(), gcInfo.getDuration()));
+
+    // Publish the identifier only after the collection has been queued.
+    lastNotifiedIds.accumulateAndGet(index, gcInfo.getId(), Math::max);
+  }
+
+  @Override
+  public void afterOperationSetUp(String benchmark, int opIndex, boolean isLastOp) {
+    operationStartMillis = runtimeMXBean.getUptime();
+  }
+
+  @Override
+  public void beforeOperationTearDown(String benchmark, int opIndex, long harnessDuration) {
+    operationEndMillis = runtimeMXBean.getUptime();
+    for (int i = 0; i < collectorMXBeans.size(); i++) {
+      collectionCountsAfter[i] = collectorMXBeans.get(i).getCollectionCount();
+    }
+  }
+
+  @Override
+  public void onMeasurementResultsRequested(String benchmark, int opIndex, Plugin.MeasurementResultListener dispatcher) {
+    if (!awaitNotifications()) {
+      warn("Some garbage collection notifications did not arrive in time, results may be incomplete.");
+    }
+
+    long[] pauses = new long[16];
+    int pauseCount = 0;
+    long concurrentCount = 0;
+    long concurrentMillis = 0;
+
+    // Collections outside the operation window are discarded.
+    Collection collection;
+    while ((collection = collections.poll()) != null) {
+      if (collection.startMillis < operationStartMillis || collection.startMillis > operationEndMillis) {
+        continue;
+      }
+
+      if (collection.concurrent) {
+        concurrentCount++;
+        concurrentMillis += collection.durationMillis;
+      } else {
+        if (pauseCount == pauses.length) {
+          pauses = Arrays.copyOf(pauses, 2 * pauseCount);
+        }
+        pauses[pauseCount++] = collection.durationMillis;
+      }
+    }
+
+    Arrays.sort(pauses, 0, pauseCount);
+
+    long pauseTotalMillis = 0;
+    for (int i = 0; i < pauseCount; i++) {
+      pauseTotalMillis += pauses[i];
+    }
+
+    dispatcher.onMeasurementResult(benchmark, "jmx_gc_pause_count", pauseCount);
+    dispatcher.onMeasurementResult(benchmark, "jmx_gc_pause_total_ms", pauseTotalMillis);
+    dispatcher.onMeasurementResult(benchmark, "jmx_gc_pause_p50_ms", percentile(pauses, pauseCount, 50));
+    dispatcher.onMeasurementResult(benchmark, "jmx_gc_pause_p90_ms", percentile(pauses, pauseCount, 90));
+    dispatcher.onMeasurementResult(benchmark, "jmx_gc_pause_p99_ms", percentile(pauses, pauseCount, 99));
+    dispatcher.onMeasurementResult(benchmark, "jmx_gc_pause_max_ms", pauseCount > 0 ? pauses[pauseCount - 1] : 0);
+    dispatcher.onMeasurementResult(benchmark, "jmx_gc_concurrent_count", concurrentCount);
+    dispatcher.onMeasurementResult(benchmark, "jmx_gc_concurrent_ms", concurrentMillis);
+  }
+
+  private boolean awaitNotifications() {
+    long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(NOTIFICATION_TIMEOUT_MS);
+    for (int i = 0; i < collectionCountsAfter.length; i++) {
+      while (lastNotifiedIds.get(i) < collectionCountsAfter[i]) {
+        if (System.nanoTime() - deadline >= 0) {
+          return false;
+        }
+
+        try {
+          Thread.sleep(1);
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+          return false;
+        }
+      }
+    }
+
+    return true;
+  }
+
+  /** Returns the nearest-rank percentile of the given sorted values. */
+  private static long percentile(long[] sortedValues, int count, double percentile) {
+    if (count == 0) {
+      return 0;
+    }
+
+    int rank = (int) Math.ceil(percentile / 100 * count);
+    return sortedValues[Math.max(rank, 1) - 1];
+  }
+
+  private void warn(String msg, Object... args) {
+    System.err.printf("[jmx-gc plugin] WARNING: " + msg + "\n", args);
+  }
+}
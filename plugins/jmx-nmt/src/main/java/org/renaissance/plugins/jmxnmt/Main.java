@@ -0,0 +1,166 @@
+package org.renaissance.plugins.jmxnmt;
+
+import java.lang.management.ManagementFactory;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import org.renaissance.Plugin;
+
+/**
+ * Collects the native memory committed by the JVM, as reported by Native
+ * Memory Tracking (NMT) through the {@code VM.native_memory summary}
+ * diagnostic command, which is invoked via the DiagnosticCommand MBean.
+ * <p>
+ * After each measured operation, the plugin publishes the committed memory
+ * of selected NMT categories. At the end of each benchmark, it prints the
+ * change of committed memory of all categories since the benchmark set up.
+ * <p>
+ * NMT must be enabled when starting the JVM, using the
+ * {@code -XX:NativeMemoryTracking=summary} option. Otherwise the plugin
+ * prints a warning and collects no metrics.
+ */
+public class Main implements Plugin,
+    Plugin.AfterBenchmarkSetUpListener,
+    Plugin.BeforeBenchmarkTearDownListener,
+    Plugin.BeforeOperationTearDownListener,
+    Plugin.MeasurementResultPublisher {
+
+  private static final String TOTAL = "Total";
+
+  /** NMT categories published for each operation, with metric name fragments. */
+  private static final String[][] PUBLISHED_CATEGORIES = {
+    { TOTAL, "total" },
+    { "Java Heap", "java_heap" },
+    { "Class", "class" },
+    { "Metaspace", "metaspace" },
+    { "Thread", "thread" },
+    { "Code", "code" },
+    { "GC", "gc" },
+    { "Internal", "internal" },
+    { "Other", "other" },
+  };
+
+  private static final Pattern TOTAL_PATTERN = Pattern.compile(
+    "^Total: reserved=(\\d+)KB, committed=(\\d+)KB", Pattern.MULTILINE
+  );
+
+  private static final Pattern CATEGORY_PATTERN = Pattern.compile(
+    "^-\\s+(.+?) \\(reserved=(\\d+)KB, committed=(\\d+)KB\\)", Pattern.MULTILINE
+  );
+
+  final MBeanServer mbeanServer = ManagementFactory.getPlatformMBeanServer();
+  final ObjectName diagnosticCommand;
+  final boolean supported;
+
+  Map<String, Long> benchmarkCommitted;
+  Map<String, Long> operationCommitted;
+
+  public Main() {
+    ObjectName name = null;
+    String summary = null;
+    try {
+      name = new ObjectName("com.sun.management:type=DiagnosticCommand");
+      summary = invokeSummary(name);
+    } catch (JMException e) {
+      warn("DiagnosticCommand MBean not available (%s), no metrics will be collected.", e.getMessage());
+    }
+
+    diagnosticCommand = name;
+    supported = summary != null && TOTAL_PATTERN.matcher(summary).find();
+    if (summary != null && !supported) {
+      warn("Native memory tracking not enabled, use -XX:NativeMemoryTracking=summary to collect metrics.");
+    }
+  }
+
+  private String invokeSummary(ObjectName name) throws JMException {
+    return (String) mbeanServer.invoke(
+      name,
+      "vmNativeMemory",
+      new Object[] { new String[] { "summary", "scale=KB" } },
+      new String[] { String[].class.getName() }
+    );
+  }
+
+  /**
+   * Returns the committed memory in bytes of each NMT category (and the
+   * total), in the order of the command output.
+   */
+  private Map<String, Long> readCommitted() {
+    Map<String, Long> result = new LinkedHashMap<>();
+    if (!supported) {
+      return result;
+    }
+
+    String summary;
+    try {
+      summary = invokeSummary(diagnosticCommand);
+    } catch (JMException e) {
+      warn("Failed to invoke VM.native_memory: %s", e.getMessage());
+      return result;
+    }
+
+    Matcher total = TOTAL_PATTERN.matcher(summary);
+    if (total.find()) {
+      result.put(TOTAL, 1024 * Long.parseLong(total.group(2)));
+    }
+
+    Matcher category = CATEGORY_PATTERN.matcher(summary);
+    while (category.find()) {
+      result.put(category.group(1), 1024 * Long.parseLong(category.group(3)));
+    }
+
+    return result;
+  }
+
+  @Override
+  public void afterBenchmarkSetUp(String benchmark) {
+    benchmarkCommitted = readCommitted();
+  }
+
+  @Override
+  public void beforeOperationTearDown(String benchmark, int opIndex, long harnessDuration) {
+    operationCommitted = readCommitted();
+  }
+
+  @Override
+  public void onMeasurementResultsRequested(String benchmark, int opIndex, Plugin.MeasurementResultListener dispatcher) {
+    if (!supported) {
+      return;
+    }
+
+    // Categories omitted from the output (below 1 KB) are reported as 0,
+    // and all values are -1 if the command failed.
+    for (String[] category : PUBLISHED_CATEGORIES) {
+      long committed = operationCommitted.isEmpty() ? -1 : operationCommitted.getOrDefault(category[0], 0L);
+      dispatcher.onMeasurementResult(benchmark, "nmt_" + category[1] + "_committed_bytes", committed);
+    }
+  }
+
+  @Override
+  public void beforeBenchmarkTearDown(String benchmark) {
+    if (!supported) {
+      return;
+    }
+
+    Map<String, Long> committed = readCommitted();
+
+    System.out.printf("Native memory committed during %s (KB):%n", benchmark);
+    for (Map.Entry<String, Long> category : committed.entrySet()) {
+      long before = benchmarkCommitted.getOrDefault(category.getKey(), 0L);
+      long after = category.getValue();
+      System.out.printf(
+        "  %24s %12d -> %12d (%+d)%n",
+        category.getKey(), before / 1024, after / 1024, (after - before) / 1024
+      );
+    }
+  }
+
+  private void warn(String msg, Object... args) {
+    System.err.printf("[jmx-nmt plugin] WARNING: " + msg + "\n", args);
+  }
+}
@@ -0,0 +1,207 @@
+package org.renaissance.plugins.linuxproc;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.renaissance.Plugin;
+
+/**
+ * Collects operating system resource usage of the JVM process during the
+ * measured operation from the Linux {@code /proc} file system: CPU time in
+ * user and system mode, minor and major page faults, voluntary and
+ * involuntary context switches, time spent waiting for a CPU, and the
+ * peak resident set size.
+ * <p>
+ * CPU times and page faults come from {@code /proc/self/stat}, which also
+ * accounts for threads that have already terminated. Context switches and
+ * run queue wait times come from the threads in {@code /proc/self/task}.
+ * They are kept for each thread, and the differences are summed over the
+ * threads alive at the end of the operation. Threads started during the
+ * operation contribute all their counts, while threads terminating during
+ * the operation are not accounted for (the counts of such threads are not
+ * available after they terminate).
+ */
+public class Main implements Plugin,
+    Plugin.AfterOperationSetUpListener,
+    Plugin.BeforeOperationTearDownListener,
+    Plugin.MeasurementResultPublisher {
+
+  /**
+   * Clock ticks per second used for CPU times in {@code /proc/self/stat}.
+   * The USER_HZ value is fixed to 100 on all common architectures.
+   */
+  private static final long CLOCK_TICKS_PER_SECOND = 100;
+
+  private static final Path PROC_SELF = Paths.get("/proc/self");
+
+  /** Indices of the per-thread counters. */
+  private static final int VOLUNTARY_SWITCHES = 0;
+  private static final int INVOLUNTARY_SWITCHES = 1;
+  private static final int RUN_DELAY_NANOS = 2;
+
+  /** Counters of the process at a single point in time. */
+  private static class Sample {
+    long userTicks;
+    long systemTicks;
+    long minorFaults;
+    long majorFaults;
+    long peakRssBytes;
+
+    /** Per-thread counters, by thread (task) identifier. */
+    final Map<String, long[]> tasks = new HashMap<>();
+
+    static Sample read() throws IOException {
+      Sample result = new Sample();
+      result.readStat(PROC_SELF.resolve("stat"));
+      result.peakRssBytes = 1024 * readStatusField(PROC_SELF.resolve("status"), "VmHWM:");
+
+      try (DirectoryStream<Path> tasks = Files.newDirectoryStream(PROC_SELF.resolve("task"))) {
+        for (Path task : tasks) {
+          try {
+            result.tasks.put(task.getFileName().toString(), readTask(task));
+          } catch (IOException | RuntimeException e) {
+            // The thread terminated in the meantime.
+          }
+        }
+      }
+
+      return result;
+    }
+
+    private void readStat(Path file) throws IOException {
+      // The command name may contain spaces, the fields start after it.
+      String stat = readString(file);
+      String[] fields = stat.substring(stat.lastIndexOf(')') + 2).split(" ");
+
+      // Field numbers in proc(5) start at 1 with the pid, and include the
+      // pid and the command name, so 'minflt' (10) is at index 10 - 3.
+      minorFaults = Long.parseLong(fields[7]);
+      majorFaults = Long.parseLong(fields[9]);
+      userTicks = Long.parseLong(fields[11]);
+      systemTicks = Long.parseLong(fields[12]);
+    }
+
+    private static long[] readTask(Path task) throws IOException {
+      long[] result = new long[3];
+
+      Path status = task.resolve("status");
+      result[VOLUNTARY_SWITCHES] = readStatusField(status, "voluntary_ctxt_switches:");
+      result[INVOLUNTARY_SWITCHES] = readStatusField(status, "nonvoluntary_ctxt_switches:");
+
+      // The 'schedstat' file is only available with CONFIG_SCHEDSTATS.
+      Path schedstat = task.resolve("schedstat");
+      if (Files.isReadable(schedstat)) {
+        String[] fields = readString(schedstat).trim().split(" ");
+        result[RUN_DELAY_NANOS] = Long.parseLong(fields[1]);
+      }
+
+      return result;
+    }
+
+    /**
+     * Returns the sums of per-thread differences of the thread counters
+     * against the given earlier sample. Threads not present in the earlier
+     * sample (or whose counters went down, because the identifier has been
+     * reused by a new thread) contribute their current counts.
+     */
+    long[] taskDeltasSince(Sample before) {
+      long[] result = new long[3];
+      for (Map.Entry<String, long[]> task : tasks.entrySet()) {
+        long[] after = task.getValue();
+        long[] earlier = before.tasks.get(task.getKey());
+        boolean reused = earlier != null && after[VOLUNTARY_SWITCHES] < earlier[VOLUNTARY_SWITCHES];
+        for (int i = 0; i < result.length; i++) {
+          result[i] += (earlier == null || reused) ? after[i] : after[i] - earlier[i];
+        }
+      }
+
+      return result;
+    }
+
+    private static long readStatusField(Path file, String name) throws IOException {
+      for (String line : Files.readAllLines(file, StandardCharsets.US_ASCII)) {
+        if (line.startsWith(name)) {
+          String value = line.substring(name.length()).trim();
+          int unitStart = value.indexOf(' ');
+          return Long.parseLong(unitStart < 0 ? value : value.substring(0, unitStart));
+        }
+      }
+
+      throw new IOException("field " + name + " not found in " + file);
+    }
+
+    private static String readString(Path file) throws IOException {
+      return new String(Files.readAllBytes(file), StandardCharsets.US_ASCII);
+    }
+  }
+
+  final boolean supported;
+
+  Sample before;
+  Sample after;
+
+  public Main() {
+    Sample sample = null;
+    try {
+      sample = Sample.read();
+    } catch (IOException | RuntimeException e) {
+      warn("Unable to read process information from /proc (%s), no metrics will be collected.", e.getMessage());
+    }
+
+    supported = sample != null;
+  }
+
+  @Override
+  public void afterOperationSetUp(String benchmark, int opIndex, boolean isLastOp) {
+    before = readSample();
+  }
+
+  @Override
+  public void beforeOperationTearDown(String benchmark, int opIndex, long harnessDuration) {
+    after = readSample();
+  }
+
+  private Sample readSample() {
+    if (!supported) {
+      return null;
+    }
+
+    try {
+      return Sample.read();
+    } catch (IOException e) {
+      warn("Unable to read process information from /proc: %s", e.getMessage());
+      return null;
+    }
+  }
+
+  @Override
+  public void onMeasurementResultsRequested(String benchmark, int opIndex, Plugin.MeasurementResultListener dispatcher) {
+    if (!supported) {
+      return;
+    }
+
+    // Failed reads are reported as -1 to keep the results complete.
+    boolean valid = before != null && after != null;
+    long millisPerTick = 1000 / CLOCK_TICKS_PER_SECOND;
+    long[] taskDeltas = valid ? after.taskDeltasSince(before) : null;
+
+    dispatcher.onMeasurementResult(benchmark, "proc_cpu_user_ms", valid ? (after.userTicks - before.userTicks) * millisPerTick : -1);
+    dispatcher.onMeasurementResult(benchmark, "proc_cpu_system_ms", valid ? (after.systemTicks - before.systemTicks) * millisPerTick : -1);
+    dispatcher.onMeasurementResult(benchmark, "proc_minor_faults", valid ? after.minorFaults - before.minorFaults : -1);
+    dispatcher.onMeasurementResult(benchmark, "proc_major_faults", valid ? after.majorFaults - before.majorFaults : -1);
+    dispatcher.onMeasurementResult(benchmark, "proc_voluntary_switches", valid ? taskDeltas[VOLUNTARY_SWITCHES] : -1);
+    dispatcher.onMeasurementResult(benchmark, "proc_involuntary_switches", valid ? taskDeltas[INVOLUNTARY_SWITCHES] : -1);
+    dispatcher.onMeasurementResult(benchmark, "proc_run_delay_ns", valid ? taskDeltas[RUN_DELAY_NANOS] : -1);
+    dispatcher.onMeasurementResult(benchmark, "proc_peak_rss_bytes", valid ? after.peakRssBytes : -1);
+  }
+
+  private void warn(String msg, Object... args) {
+    System.err.printf("[linux-proc plugin] WARNING: " + msg + "\n", args);
+  }
+}
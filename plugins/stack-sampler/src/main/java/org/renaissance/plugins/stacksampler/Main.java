@@ -0,0 +1,272 @@
+package org.renaissance.plugins.stacksampler;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadInfo;
+import java.lang.management.ThreadMXBean;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+import org.renaissance.Plugin;
+
+/**
+ * Periodically samples the stacks of runnable threads during the measured
+ * operation (and only then) from a dedicated sampler thread. Only threads
+ * in the thread group of the thread executing the operation (and its
+ * subgroups) are sampled, which excludes the service threads of the JVM.
+ * <p>
+ * At the end of each benchmark, the plugin writes the samples of all
+ * operations in the collapsed (folded) stack format used by flame graph
+ * tools to {@code <benchmark>.collapsed}, and the methods with the most
+ * samples at the top of the stack (self samples) to {@code <benchmark>.hot.txt}.
+ * The hot methods are also printed to the standard output.
+ * <p>
+ * The plugin accepts the following arguments:
+ * <ul>
+ * <li>{@code interval=<ms>}, the sampling interval (10 ms by default),</li>
+ * <li>{@code top=<count>}, the number of hot methods to report (10 by default),</li>
+ * <li>{@code output=<dir>}, the directory for output files (current directory by default).</li>
+ * </ul>
+ * <p>
+ * Stacks are sampled via {@link ThreadMXBean#getThreadInfo(long[], int)},
+ * which requires a safepoint, so the samples are biased towards safepoint
+ * polls and the sampling itself briefly pauses the benchmark threads.
+ */
+public class Main implements Plugin,
+    Plugin.AfterOperationSetUpListener,
+    Plugin.BeforeOperationTearDownListener,
+    Plugin.BeforeBenchmarkTearDownListener,
+    Plugin.MeasurementResultPublisher {
+
+  final long intervalMillis;
+  final int topCount;
+  final Path outputDirectory;
+
+  final ThreadMXBean threadMXBean = ManagementFactory.getThreadMXBean();
+
+  final ScheduledExecutorService sampler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+    Thread thread = new Thread(runnable, "renaissance-stack-sampler");
+    thread.setDaemon(true);
+    return thread;
+  });
+
+  /** Sample counts of collapsed stacks during the current benchmark. */
+  final Map<String, long[]> stackSamples = new HashMap<>();
+
+  /** Sample counts of methods at the top of the stack during the current benchmark. */
+  final Map<String, long[]> selfSamples = new HashMap<>();
+
+  /** Guards the sample counts and the state of sampling. */
+  final Object lock = new Object();
+
+  volatile ThreadGroup threadGroup;
+
+  ScheduledFuture<?> sampling;
+  boolean active;
+  long samplerThreadId = -1;
+
+  long operationTicks;
+  long operationSamples;
+
+  public Main(String[] args) {
+    long interval = 10;
+    int top = 10;
+    Path output = Paths.get("");
+
+    for (String arg : args) {
+      String[] parts = arg.split("=", 2);
+      if (parts.length != 2) {
+        warn("Ignoring argument '%s', expected <name>=<value>.", arg);
+        continue;
+      }
+
+      if (parts[0].equals("interval")) {
+        interval = Long.parseLong(parts[1]);
+      } else if (parts[0].equals("top")) {
+        top = Integer.parseInt(parts[1]);
+      } else if (parts[0].equals("output")) {
+        output = Paths.get(parts[1]);
+      } else {
+        warn("Ignoring unknown argument '%s'.", arg);
+      }
+    }
+
+    intervalMillis = Math.max(1, interval);
+    topCount = top;
+    outputDirectory = output;
+  }
+
+  @Override
+  public void afterOperationSetUp(String benchmark, int opIndex, boolean isLastOp) {
+    synchronized (lock) {
+      operationTicks = 0;
+      operationSamples = 0;
+      active = true;
+    }
+
+    threadGroup = Thread.currentThread().getThreadGroup();
+
+    sampling = sampler.scheduleAtFixedRate(this::sample, 0, intervalMillis, TimeUnit.MILLISECONDS);
+  }
+
+  @Override
+  public void beforeOperationTearDown(String benchmark, int opIndex, long harnessDuration) {
+    sampling.cancel(false);
+
+    // A sample in progress completes before the flag is cleared.
+    synchronized (lock) {
+      active = false;
+    }
+  }
+
+  private void sample() {
+    if (samplerThreadId < 0) {
+      samplerThreadId = Thread.currentThread().getId();
+    }
+
+    ThreadInfo[] threads = threadMXBean.getThreadInfo(benchmarkThreadIds(), Integer.MAX_VALUE);
+
+    synchronized (lock) {
+      if (!active) {
+        return;
+      }
+
+      operationTicks++;
+      for (ThreadInfo thread : threads) {
+        // Threads that terminated in the meantime have no information.
+        if (thread == null || thread.getThreadState() != Thread.State.RUNNABLE) {
+          continue;
+        }
+
+        StackTraceElement[] stack = thread.getStackTrace();
+        if (stack.length == 0) {
+          continue;
+        }
+
+        increment(stackSamples, collapse(stack));
+        increment(selfSamples, frameName(stack[0]));
+        operationSamples++;
+      }
+    }
+  }
+
+  private long[] benchmarkThreadIds() {
+    ThreadGroup group = threadGroup;
+
+    // Leave room for threads started after estimating the count.
+    Thread[] threads = new Thread[2 * group.activeCount() + 16];
+    int count = group.enumerate(threads, true);
+
+    long[] result = new long[count];
+    int resultCount = 0;
+    for (int i = 0; i < count; i++) {
+      if (threads[i].getId() != samplerThreadId) {
+        result[resultCount++] = threads[i].getId();
+      }
+    }
+
+    return Arrays.copyOf(result, resultCount);
+  }
+
+  /** Returns the stack frames from the root to the top, separated by semicolons. */
+  private static String collapse(StackTraceElement[] stack) {
+    StringBuilder result = new StringBuilder();
+    for (int i = stack.length - 1; i >= 0; i--) {
+      result.append(frameName(stack[i]));
+      if (i > 0) {
+        result.append(';');
+      }
+    }
+
+    return result.toString();
+  }
+
+  private static String frameName(StackTraceElement frame) {
+    return frame.getClassName() + "." + frame.getMethodName();
+  }
+
+  private static void increment(Map<String, long[]> counts, String key) {
+    counts.computeIfAbsent(key, k -> new long[1])[0]++;
+  }
+
+  @Override
+  public void onMeasurementResultsRequested(String benchmark, int opIndex, Plugin.MeasurementResultListener dispatcher) {
+    synchronized (lock) {
+      dispatcher.onMeasurementResult(benchmark, "stack_sampler_ticks", operationTicks);
+      dispatcher.onMeasurementResult(benchmark, "stack_sampler_samples", operationSamples);
+    }
+  }
+
+  @Override
+  public void beforeBenchmarkTearDown(String benchmark) {
+    synchronized (lock) {
+      List<Map.Entry<String, long[]>> hotMethods = new ArrayList<>(selfSamples.entrySet());
+      hotMethods.sort((a, b) -> Long.compare(b.getValue()[0], a.getValue()[0]));
+      if (hotMethods.size() > topCount) {
+        hotMethods = hotMethods.subList(0, topCount);
+      }
+
+      long total = 0;
+      for (long[] count : selfSamples.values()) {
+        total += count[0];
+      }
+
+      try {
+        Files.createDirectories(outputDirectory);
+        writeCollapsedStacks(outputDirectory.resolve(benchmark + ".collapsed"));
+        writeHotMethods(outputDirectory.resolve(benchmark + ".hot.txt"), hotMethods, total);
+      } catch (IOException e) {
+        warn("Failed to write stack samples of %s: %s", benchmark, e.getMessage());
+      }
+
+      System.out.printf("Hot methods of %s (%d samples):%n", benchmark, total);
+      for (Map.Entry<String, long[]> method : hotMethods) {
+        System.out.println(formatHotMethod(method, total));
+      }
+
+      stackSamples.clear();
+      selfSamples.clear();
+    }
+  }
+
+  private void writeCollapsedStacks(Path file) throws IOException {
+    try (BufferedWriter writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+      for (Map.Entry<String, long[]> stack : stackSamples.entrySet()) {
+        writer.write(stack.getKey() + " " + stack.getValue()[0]);
+        writer.newLine();
+      }
+    }
+  }
+
+  private static void writeHotMethods(
+    Path file, List<Map.Entry<String, long[]>> hotMethods, long total
+  ) throws IOException {
+    try (BufferedWriter writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+      for (Map.Entry<String, long[]> method : hotMethods) {
+        writer.write(formatHotMethod(method, total));
+        writer.newLine();
+      }
+    }
+  }
+
+  private static String formatHotMethod(Map.Entry<String, long[]> method, long total) {
+    long count = method.getValue()[0];
+    return String.format("%8d %6.2f%% %s", count, 100.0 * count / total, method.getKey());
+  }
+
+  private void warn(String msg, Object... args) {
+    System.err.printf("[stack-sampler plugin] WARNING: " + msg + "\n", args);
+  }
+}
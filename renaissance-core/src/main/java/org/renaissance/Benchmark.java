@@ -236,6 +236,19 @@ public interface Benchmark {
     String value();
   }
 
+
+  /**
+   * Indicates that the measured operation of a single benchmark instance can
+   * be executed concurrently by multiple threads. When the harness executes
+   * the measured operation in multiple threads, the threads share a single
+   * instance of such a benchmark, instead of each thread getting its own.
+   */
+  @Documented
+  @Target(ElementType.TYPE)
+  @Retention(RetentionPolicy.RUNTIME)
+  @interface ThreadSafe {
+  }
+
   //
 
   /**
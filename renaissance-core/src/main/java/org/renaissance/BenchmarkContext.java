@@ -35,4 +35,35 @@ public interface BenchmarkContext {
    */
   Path scratchDirectory();
 
+
+  /**
+   * Records the latency of a single request (or another unit of work)
+   * processed during the measured operation. The method can be called
+   * concurrently from multiple threads, each thread records into its own
+   * histogram without locking. After each operation, the harness publishes
+   * the number of recorded latencies, the 50th, 99th and 99.9th percentile,
+   * and the maximum as measurement results.
+   * <p>
+   * A benchmark that records latencies should do so in every operation.
+   *
+   * @param nanos Latency in nanoseconds.
+   */
+  void recordLatency(long nanos);
+
+
+  /**
+   * Reports the amount of work performed by the measured operation, such
+   * as the number of requests served or rows written. The amounts reported
+   * during an operation add up, and the method can be called concurrently
+   * from multiple threads. After each operation, the harness publishes the
+   * total as the {@code work_units} metric, together with the throughput
+   * in thousandths of a unit per second, as the
+   * {@code throughput_milli_units_per_s} metric.
+   * <p>
+   * A benchmark that reports work units should do so in every operation.
+   *
+   * @param units Amount of work in benchmark-specific units.
+   */
+  void reportWorkUnits(long units);
+
 }
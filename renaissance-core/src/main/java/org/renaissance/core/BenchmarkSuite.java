@@ -24,6 +24,7 @@ import java.util.Optional;
 import java.util.Set;
 import java.util.SortedSet;
 import java.util.TreeSet;
+import java.util.concurrent.atomic.LongAdder;
 import java.util.function.Predicate;
 import java.util.logging.Level;
 import java.util.logging.Logger;
@@ -218,12 +219,45 @@ public final class BenchmarkSuite {
   public static final class SuiteBenchmarkContext implements BenchmarkContext {
     private final Path scratchDir;
     private final Configuration configuration;
+    private final LatencyHistograms latencies = new LatencyHistograms();
+    private final LongAdder workUnits = new LongAdder();
+    private volatile boolean workUnitsReported;
+
+    /** Context collecting latencies and work units, {@code this} unless an instance context. */
+    private final SuiteBenchmarkContext primary;
 
     SuiteBenchmarkContext(
       Path scratchDir, Configuration configuration
     ) {
       this.scratchDir = scratchDir;
       this.configuration = configuration;
+      this.primary = this;
+    }
+
+    private SuiteBenchmarkContext(
+      Path scratchDir, SuiteBenchmarkContext primary
+    ) {
+      this.scratchDir = scratchDir;
+      this.configuration = primary.configuration;
+      this.primary = primary;
+    }
+
+    /**
+     * Creates a context for one of multiple instances of the benchmark. The
+     * instance gets its own scratch directory (a subdirectory of the scratch
+     * directory of this context), but latencies and work units are collected
+     * by this context.
+     */
+    public SuiteBenchmarkContext createInstanceContext(int index) {
+      try {
+        final Path instanceScratchDir = Files.createDirectories(
+          scratchDir.resolve("instance-" + index)
+        );
+
+        return new SuiteBenchmarkContext(instanceScratchDir, primary);
+      } catch (IOException e) {
+        throw new RuntimeException("failed to create benchmark instance scratch directory", e);
+      }
     }
 
     public String benchmarkName() {
@@ -241,6 +275,27 @@ public final class BenchmarkSuite {
       return configuration.name();
     }
 
+    /**
+     * Returns the latencies recorded by the benchmark.
+     */
+    public LatencyHistograms latencies() {
+      return primary.latencies;
+    }
+
+    /**
+     * Returns {@code true} if the benchmark has ever reported work units.
+     */
+    public boolean isWorkUnitsReported() {
+      return primary.workUnitsReported;
+    }
+
+    /**
+     * Returns the work units reported since the previous call.
+     */
+    public long takeWorkUnits() {
+      return primary.workUnits.sumThenReset();
+    }
+
     // Normal BenchmarkContext
 
     @Override
@@ -252,6 +307,19 @@ public final class BenchmarkSuite {
     public Path scratchDirectory() {
       return scratchDir;
     }
+
+    @Override
+    public void recordLatency(long nanos) {
+      primary.latencies.record(nanos);
+    }
+
+    @Override
+    public void reportWorkUnits(long units) {
+      primary.workUnits.add(units);
+      if (!primary.workUnitsReported) {
+        primary.workUnitsReported = true;
+      }
+    }
   }
 
   // Extension support
@@ -0,0 +1,204 @@
+package org.renaissance.core;
+
+import java.lang.ref.WeakReference;
+import java.util.Iterator;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Collects latencies recorded by benchmark threads into histograms with
+ * logarithmic buckets, each split into linear sub-buckets (in the style of
+ * HdrHistogram). Values below {@link #SUB_BUCKET_COUNT} are exact, larger
+ * values are kept with a relative error below {@code 1 / (SUB_BUCKET_COUNT / 2)}.
+ * <p>
+ * Each recording thread owns a histogram, so recording a value does not
+ * need any locks. Counters are only ever incremented, and a {@link Snapshot}
+ * contains the values recorded since the previous snapshot, which allows
+ * taking snapshots while other threads keep recording. Histograms of
+ * terminated threads are dropped once their values have been included
+ * in a snapshot, so that benchmarks which start a thread per request
+ * do not accumulate histograms.
+ */
+public final class LatencyHistograms {
+
+  private static final int SUB_BUCKET_BITS = 8;
+
+  private static final int SUB_BUCKET_COUNT = 1 << SUB_BUCKET_BITS;
+
+  private static final int SUB_BUCKET_HALF_COUNT = SUB_BUCKET_COUNT / 2;
+
+  /** Number of buckets needed to cover all non-negative {@code long} values. */
+  private static final int BUCKET_COUNT = bucketIndex(Long.MAX_VALUE) + 1;
+
+  private final Queue<ThreadHistogram> histograms = new ConcurrentLinkedQueue<>();
+
+  private final ThreadLocal<ThreadHistogram> threadHistogram = ThreadLocal.withInitial(() -> {
+    final ThreadHistogram result = new ThreadHistogram(Thread.currentThread());
+    histograms.add(result);
+    return result;
+  });
+
+  private volatile boolean used;
+
+  //
+
+  /**
+   * Records a single latency value in the histogram of the calling thread.
+   * Negative values are recorded as zero.
+   */
+  public void record(final long nanos) {
+    threadHistogram.get().increment(bucketIndex(Math.max(0, nanos)));
+    if (!used) {
+      used = true;
+    }
+  }
+
+
+  /** Returns {@code true} if any value has ever been recorded. */
+  public boolean isUsed() {
+    return used;
+  }
+
+
+  /**
+   * Returns the values recorded by all threads since the previous snapshot.
+   * Not intended to be called concurrently from multiple threads.
+   */
+  public Snapshot snapshot() {
+    final long[] counts = new long[BUCKET_COUNT];
+    final Iterator<ThreadHistogram> iterator = histograms.iterator();
+    while (iterator.hasNext()) {
+      final ThreadHistogram histogram = iterator.next();
+
+      // Check before collecting, a terminated thread records no more values.
+      final boolean terminated = histogram.isOwnerTerminated();
+      histogram.collectSinceLastSnapshot(counts);
+      if (terminated) {
+        iterator.remove();
+      }
+    }
+
+    return new Snapshot(counts);
+  }
+
+  //
+
+  private static int bucketIndex(final long value) {
+    if (value < SUB_BUCKET_COUNT) {
+      return (int) value;
+    }
+
+    // Shift the value so that it falls into the upper half of sub-buckets.
+    final int magnitude = 63 - Long.numberOfLeadingZeros(value);
+    final int shift = magnitude - (SUB_BUCKET_BITS - 1);
+    return shift * SUB_BUCKET_HALF_COUNT + (int) (value >>> shift);
+  }
+
+
+  /** Returns the highest value which falls into the given bucket. */
+  private static long highestValue(final int index) {
+    if (index < SUB_BUCKET_COUNT) {
+      return index;
+    }
+
+    final int shift = (index - SUB_BUCKET_HALF_COUNT) / SUB_BUCKET_HALF_COUNT;
+    final long subBucket = index - shift * SUB_BUCKET_HALF_COUNT;
+    return ((subBucket + 1) << shift) - 1;
+  }
+
+  //
+
+  /**
+   * Histogram with a single writer thread. The counters are written with
+   * ordered stores, so that the snapshot taken by another thread sees
+   * complete values.
+   */
+  private static final class ThreadHistogram {
+    /** The writer thread, referenced weakly to not keep it reachable. */
+    private final WeakReference<Thread> owner;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKET_COUNT);
+
+    /** Counts at the previous snapshot, only accessed by the reader. */
+    private final long[] snapshotCounts = new long[BUCKET_COUNT];
+
+    ThreadHistogram(final Thread owner) {
+      this.owner = new WeakReference<>(owner);
+    }
+
+    boolean isOwnerTerminated() {
+      final Thread thread = owner.get();
+      return thread == null || !thread.isAlive();
+    }
+
+    void increment(final int index) {
+      counts.lazySet(index, counts.get(index) + 1);
+    }
+
+    void collectSinceLastSnapshot(final long[] result) {
+      for (int i = 0; i < BUCKET_COUNT; i++) {
+        final long count = counts.get(i);
+        result[i] += count - snapshotCounts[i];
+        snapshotCounts[i] = count;
+      }
+    }
+  }
+
+  //
+
+  /**
+   * Latency values recorded between two snapshots. Percentiles and maximum
+   * report the highest value equivalent to the respective bucket.
+   */
+  public static final class Snapshot {
+    private final long[] counts;
+
+    private final long totalCount;
+
+    private Snapshot(final long[] counts) {
+      this.counts = counts;
+
+      long total = 0;
+      for (final long count : counts) {
+        total += count;
+      }
+
+      this.totalCount = total;
+    }
+
+    public long count() {
+      return totalCount;
+    }
+
+    /**
+     * Returns the smallest value such that the given percentage of the
+     * recorded values is less than or equal to it, or zero if there are
+     * no values.
+     */
+    public long valueAtPercentile(final double percentile) {
+      final long rank = Math.max(1, (long) Math.ceil(percentile / 100 * totalCount));
+
+      long seen = 0;
+      for (int i = 0; i < counts.length; i++) {
+        seen += counts[i];
+        if (seen >= rank) {
+          return highestValue(i);
+        }
+      }
+
+      return 0;
+    }
+
+    public long max() {
+      for (int i = counts.length - 1; i >= 0; i--) {
+        if (counts[i] > 0) {
+          return highestValue(i);
+        }
+      }
+
+      return 0;
+    }
+  }
+
+}
@@ -7,14 +7,33 @@ import org.renaissance.Plugin.ExecutionPolicy;
 import org.renaissance.core.BenchmarkDescriptor;
 import org.renaissance.core.BenchmarkSuite;
 import org.renaissance.core.BenchmarkSuite.SuiteBenchmarkContext;
+import org.renaissance.core.LatencyHistograms;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Locale;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * Benchmark execution driver. Captures the sequence of actions performed
  * during benchmark execution (i.e., calling the sequencing methods on a
  * benchmark and issuing notifications to event listeners) and maintains
  * execution context.
+ * <p>
+ * The measured operation can be executed concurrently by multiple operation
+ * threads. Each thread then uses its own benchmark instance, unless the
+ * benchmark is {@link Benchmark.ThreadSafe thread-safe}, in which case the
+ * threads share a single instance. Multiple instances each get a context
+ * with a scratch directory of their own. The setup and teardown methods are
+ * called on each instance by the driver thread. The threads start the
+ * operation at the same time, and the duration of the operation lasts until
+ * the last thread completes it. The duration of the operation in each thread is
+ * published as a separate metric.
  */
 final class ExecutionDriver {
 
@@ -27,6 +46,18 @@ final class ExecutionDriver {
   /** The benchmark to execute. */
   private final Benchmark benchmark;
 
+  /** Distinct benchmark instances, the first being {@link #benchmark}. */
+  private final List<Benchmark> instances;
+
+  /** Contexts of the benchmark instances, in the same order. */
+  private final List<SuiteBenchmarkContext> instanceContexts;
+
+  /** Number of threads executing the measured operation concurrently. */
+  private final int threadCount;
+
+  /** Executes the measured operation in multiple threads, if enabled. */
+  private ExecutorService operationExecutor;
+
   /** The dispatcher for execution-related events. */
   private final EventDispatcher eventDispatcher;
 
@@ -48,13 +79,18 @@ final class ExecutionDriver {
 
   private ExecutionDriver(
     final SuiteBenchmarkContext context,
-    final Benchmark benchmark,
+    final List<Benchmark> instances,
+    final List<SuiteBenchmarkContext> instanceContexts,
+    final int threadCount,
     final EventDispatcher dispatcher,
     final ExecutionPolicy policy,
     final long vmStartNanos
   ) {
     this.benchmarkContext = context;
-    this.benchmark = benchmark;
+    this.benchmark = instances.get(0);
+    this.instances = instances;
+    this.instanceContexts = instanceContexts;
+    this.threadCount = threadCount;
     this.eventDispatcher = dispatcher;
     this.executionPolicy = policy;
     this.vmStartNanos = vmStartNanos;
@@ -78,8 +114,17 @@ final class ExecutionDriver {
   public final void executeBenchmark() throws ValidationException {
     eventDispatcher.notifyBeforeBenchmarkSetUp(benchmarkName);
 
+    int setUpCount = 0;
+
     try {
-      benchmark.setUpBeforeAll(benchmarkContext);
+      for (int i = 0; i < instances.size(); i++) {
+        instances.get(i).setUpBeforeAll(instanceContexts.get(i));
+        setUpCount++;
+      }
+
+      if (threadCount > 1) {
+        operationExecutor = createOperationExecutor();
+      }
 
       try {
         eventDispatcher.notifyAfterBenchmarkSetUp(benchmarkName);
@@ -90,7 +135,9 @@ final class ExecutionDriver {
           while (executionPolicy.canExecute(benchmarkName, operationIndex)) {
             printBeforeEachMessage(operationIndex);
 
-            final long durationNanos = executeOperation(operationIndex);
+            final long durationNanos = (threadCount > 1)
+              ? executeConcurrentOperation(operationIndex)
+              : executeOperation(operationIndex);
 
             printAfterSuccessMessage(operationIndex, durationNanos);
             operationIndex++;
@@ -107,11 +154,17 @@ final class ExecutionDriver {
         }
 
       } finally {
-        // Complement the setUpBeforeAll() benchmark invocation.
-        benchmark.tearDownAfterAll(benchmarkContext);
+        if (operationExecutor != null) {
+          operationExecutor.shutdownNow();
+        }
       }
 
     } finally {
+      // Complement the setUpBeforeAll() benchmark invocations.
+      for (int i = 0; i < setUpCount; i++) {
+        instances.get(i).tearDownAfterAll(instanceContexts.get(i));
+      }
+
       // Complement the notifyBeforeBenchmarkSetUp() events.
       eventDispatcher.notifyAfterBenchmarkTearDown(benchmarkName);
     }
@@ -145,6 +198,88 @@ final class ExecutionDriver {
     final long uptimeNanos = startNanos - vmStartNanos;
     eventDispatcher.notifyOnMeasurementResult(benchmarkName, "uptime_ns", uptimeNanos);
     eventDispatcher.notifyOnMeasurementResult(benchmarkName, "duration_ns", durationNanos);
+    publishLatencies();
+    publishWorkUnits(durationNanos);
+
+    eventDispatcher.notifyOnMeasurementResultsRequested(
+      benchmarkName, index, eventDispatcher::notifyOnMeasurementResult
+    );
+
+    return durationNanos;
+  }
+
+
+  private long executeConcurrentOperation(final int index) throws ValidationException {
+    //
+    // Same as executeOperation(), but the measured operation is executed by
+    // all operation threads. The threads first wait for each other and then
+    // for the driver to take the start timestamp. The end timestamp is taken
+    // after all threads have completed the operation.
+    //
+    for (int i = 0; i < instances.size(); i++) {
+      instances.get(i).setUpBeforeEach(instanceContexts.get(i));
+    }
+
+    eventDispatcher.notifyAfterOperationSetUp(
+      benchmarkName, index, executionPolicy.isLast(benchmarkName, index)
+    );
+
+    final BenchmarkResult[] results = new BenchmarkResult[threadCount];
+    final long[] threadNanos = new long[threadCount];
+
+    final CountDownLatch readyLatch = new CountDownLatch(threadCount);
+    final CountDownLatch startLatch = new CountDownLatch(1);
+
+    final List<Future<?>> futures = new ArrayList<>(threadCount);
+    for (int thread = 0; thread < threadCount; thread++) {
+      final int threadIndex = thread;
+      final Benchmark instance = instances.get(thread % instances.size());
+      final SuiteBenchmarkContext instanceContext = instanceContexts.get(thread % instances.size());
+      futures.add(operationExecutor.submit(() -> {
+        readyLatch.countDown();
+        startLatch.await();
+
+        final long threadStartNanos = System.nanoTime();
+        results[threadIndex] = instance.run(instanceContext);
+        threadNanos[threadIndex] = System.nanoTime() - threadStartNanos;
+        return null;
+      }));
+    }
+
+    final long startNanos;
+    try {
+      readyLatch.await();
+      startNanos = System.nanoTime();
+      startLatch.countDown();
+    } catch (InterruptedException e) {
+      futures.forEach(f -> f.cancel(true));
+      Thread.currentThread().interrupt();
+      throw new RuntimeException("interrupted while starting operation threads", e);
+    }
+
+    awaitAll(futures);
+    final long durationNanos = System.nanoTime() - startNanos;
+
+    eventDispatcher.notifyBeforeOperationTearDown(benchmarkName, index, durationNanos);
+    for (int i = 0; i < instances.size(); i++) {
+      instances.get(i).tearDownAfterEach(instanceContexts.get(i));
+    }
+
+    for (final BenchmarkResult result : results) {
+      result.validate();
+    }
+
+    final long uptimeNanos = startNanos - vmStartNanos;
+    eventDispatcher.notifyOnMeasurementResult(benchmarkName, "uptime_ns", uptimeNanos);
+    eventDispatcher.notifyOnMeasurementResult(benchmarkName, "duration_ns", durationNanos);
+    for (int thread = 0; thread < threadCount; thread++) {
+      eventDispatcher.notifyOnMeasurementResult(
+        benchmarkName, "thread_" + thread + "_duration_ns", threadNanos[thread]
+      );
+    }
+
+    publishLatencies();
+    publishWorkUnits(durationNanos);
 
     eventDispatcher.notifyOnMeasurementResultsRequested(
       benchmarkName, index, eventDispatcher::notifyOnMeasurementResult
@@ -154,6 +289,85 @@ final class ExecutionDriver {
   }
 
 
+  /**
+   * Waits for all operation threads to complete and rethrows the first
+   * failure, so that no thread keeps running after a failed operation.
+   */
+  private static void awaitAll(final List<Future<?>> futures) {
+    Throwable failure = null;
+    for (final Future<?> future : futures) {
+      try {
+        future.get();
+      } catch (ExecutionException e) {
+        failure = (failure != null) ? failure : e.getCause();
+      } catch (InterruptedException e) {
+        futures.forEach(f -> f.cancel(true));
+        Thread.currentThread().interrupt();
+        failure = (failure != null) ? failure : e;
+      }
+    }
+
+    if (failure instanceof RuntimeException) {
+      throw (RuntimeException) failure;
+    } else if (failure instanceof Error) {
+      throw (Error) failure;
+    } else if (failure != null) {
+      throw new RuntimeException(failure);
+    }
+  }
+
+
+  private ExecutorService createOperationExecutor() {
+    // The threads inherit the context class loader of the driver thread.
+    final AtomicInteger threadIndex = new AtomicInteger();
+    return Executors.newFixedThreadPool(threadCount, runnable -> {
+      final Thread thread = new Thread(
+        runnable, benchmarkName + "-operation-" + threadIndex.getAndIncrement()
+      );
+
+      thread.setDaemon(true);
+      return thread;
+    });
+  }
+
+
+  /**
+   * Publishes the distribution of latencies recorded by the benchmark
+   * during the operation, if the benchmark records latencies at all.
+   */
+  private void publishLatencies() {
+    final LatencyHistograms latencies = benchmarkContext.latencies();
+    if (!latencies.isUsed()) {
+      return;
+    }
+
+    final LatencyHistograms.Snapshot snapshot = latencies.snapshot();
+    eventDispatcher.notifyOnMeasurementResult(benchmarkName, "latency_count", snapshot.count());
+    eventDispatcher.notifyOnMeasurementResult(benchmarkName, "latency_p50_ns", snapshot.valueAtPercentile(50));
+    eventDispatcher.notifyOnMeasurementResult(benchmarkName, "latency_p99_ns", snapshot.valueAtPercentile(99));
+    eventDispatcher.notifyOnMeasurementResult(benchmarkName, "latency_p999_ns", snapshot.valueAtPercentile(99.9));
+    eventDispatcher.notifyOnMeasurementResult(benchmarkName, "latency_max_ns", snapshot.max());
+  }
+
+
+  /**
+   * Publishes the work units reported by the benchmark during the operation
+   * and the derived throughput, if the benchmark reports work units at all.
+   */
+  private void publishWorkUnits(final long durationNanos) {
+    if (!benchmarkContext.isWorkUnitsReported()) {
+      return;
+    }
+
+    final long workUnits = benchmarkContext.takeWorkUnits();
+    final double unitsPerSecond = workUnits * 1e9 / Math.max(1, durationNanos);
+    eventDispatcher.notifyOnMeasurementResult(benchmarkName, "work_units", workUnits);
+    eventDispatcher.notifyOnMeasurementResult(
+      benchmarkName, "throughput_milli_units_per_s", Math.round(1000 * unitsPerSecond)
+    );
+  }
+
+
   private void printBeforeEachMessage(int index) {
     System.out.printf(beforeEachFormat, index);
   }
@@ -173,11 +387,36 @@ final class ExecutionDriver {
 
   public static ExecutionDriver create (
     BenchmarkSuite suite, BenchmarkDescriptor descriptor,
-    EventDispatcher dispatcher, ExecutionPolicy policy, long vmStartNanos
+    EventDispatcher dispatcher, ExecutionPolicy policy, long vmStartNanos,
+    int threadCount
   ) {
     SuiteBenchmarkContext context = suite.createBenchmarkContext(descriptor);
-    Benchmark benchmark = suite.createBenchmark(descriptor);
-    return new ExecutionDriver(context, benchmark, dispatcher, policy, vmStartNanos);
+
+    List<Benchmark> instances = new ArrayList<>();
+    instances.add(suite.createBenchmark(descriptor));
+
+    // Thread-safe benchmarks share one instance, others get one per thread.
+    // Additional instances are created from the same (already loaded) class.
+    Class<? extends Benchmark> benchClass = instances.get(0).getClass();
+    if (!benchClass.isAnnotationPresent(Benchmark.ThreadSafe.class)) {
+      try {
+        while (instances.size() < threadCount) {
+          instances.add(benchClass.getDeclaredConstructor().newInstance());
+        }
+      } catch (ReflectiveOperationException e) {
+        throw new RuntimeException("failed to create benchmark instance", e);
+      }
+    }
+
+    // Multiple instances must not share files in the scratch directory.
+    List<SuiteBenchmarkContext> instanceContexts = new ArrayList<>();
+    for (int i = 0; i < instances.size(); i++) {
+      instanceContexts.add((instances.size() > 1) ? context.createInstanceContext(i) : context);
+    }
+
+    return new ExecutionDriver(
+      context, instances, instanceContexts, threadCount, dispatcher, policy, vmStartNanos
+    );
   }
 
 }
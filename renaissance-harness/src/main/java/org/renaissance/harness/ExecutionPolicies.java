@@ -1,5 +1,7 @@
 package org.renaissance.harness;
 
+import java.util.Arrays;
+import java.util.Locale;
 import java.util.function.ToIntFunction;
 
 import static org.renaissance.Plugin.AfterBenchmarkSetUpListener;
@@ -132,4 +134,163 @@ final class ExecutionPolicies {
     }
   }
 
+  /**
+   * Keeps executing the benchmark's measured operation until the mean
+   * duration of the operation in steady state is known with a given
+   * precision, i.e., until the 95% confidence interval of the mean is
+   * within a given fraction of the mean.
+   * <p>
+   * The warmup operations are excluded using the Marginal Standard Error
+   * Rule (MSER), which picks the number of initial operations to discard
+   * so as to minimize the standard error of the mean of the remaining ones.
+   * At most half of the operations are considered warmup, and at least
+   * {@link #MIN_STEADY_COUNT} operations must remain.
+   * <p>
+   * The number of executed operations is bounded from both sides. When the
+   * stop criterion is met, one more operation is executed as the last one,
+   * so that the listeners are told about it in advance.
+   */
+  static final class SteadyState implements ExecutionPolicy,
+    AfterBenchmarkSetUpListener, BeforeOperationTearDownListener {
+
+    /** Minimal number of steady-state operations to compute the interval. */
+    private static final int MIN_STEADY_COUNT = 5;
+
+    /** Quantiles of the t-distribution for two-sided 95% intervals. */
+    private static final double[] T_975 = {
+      12.706, 4.303, 3.182, 2.776, 2.571, 2.447, 2.365, 2.306, 2.262, 2.228,
+      2.201, 2.179, 2.160, 2.145, 2.131, 2.120, 2.110, 2.101, 2.093, 2.086,
+      2.080, 2.074, 2.069, 2.064, 2.060, 2.056, 2.052, 2.048, 2.045, 2.042
+    };
+
+    private final double precision;
+
+    private final int minCount;
+
+    private final int maxCount;
+
+    private long[] durations = new long[64];
+    private int count;
+    private int elapsedCount;
+
+    SteadyState(final double precision, final int minCount, final int maxCount) {
+      this.precision = precision;
+      this.minCount = minCount;
+      this.maxCount = maxCount;
+    }
+
+    @Override
+    public void afterBenchmarkSetUp(String benchmark) {
+      // Reset counters for each benchmark
+      count = 0;
+      elapsedCount = 0;
+    }
+
+    @Override
+    public void beforeOperationTearDown(String benchmark, int opIndex, long durationNanos) {
+      if (count == durations.length) {
+        durations = Arrays.copyOf(durations, 2 * count);
+      }
+
+      durations[count++] = durationNanos;
+
+      // The next operation counts towards the bounds, it will be the last one.
+      if (elapsedCount > 0) {
+        elapsedCount++;
+      } else if (count + 1 >= minCount && count + 1 < maxCount && reachedSteadyState()) {
+        elapsedCount = 1;
+      } else if (count == maxCount) {
+        System.out.printf("Steady state not reached in %d operations.\n", count);
+      }
+    }
+
+    @Override
+    public boolean canExecute(String benchmark, int opIndex) {
+      return elapsedCount <= 1 && opIndex < maxCount;
+    }
+
+    @Override
+    public boolean isLast(String benchmark, int opIndex) {
+      return elapsedCount == 1 || opIndex + 1 == maxCount;
+    }
+
+    private boolean reachedSteadyState() {
+      final int warmupCount = getWarmupCount();
+      final int steadyCount = count - warmupCount;
+      if (steadyCount < MIN_STEADY_COUNT) {
+        return false;
+      }
+
+      double sum = 0;
+      for (int i = warmupCount; i < count; i++) {
+        sum += durations[i];
+      }
+
+      final double mean = sum / steadyCount;
+
+      double squares = 0;
+      for (int i = warmupCount; i < count; i++) {
+        final double deviation = durations[i] - mean;
+        squares += deviation * deviation;
+      }
+
+      final double stdDev = Math.sqrt(squares / (steadyCount - 1));
+      final double halfWidth = t975(steadyCount - 1) * stdDev / Math.sqrt(steadyCount);
+      if (halfWidth > precision * mean) {
+        return false;
+      }
+
+      System.out.printf(
+        (Locale) null,
+        "Steady state after %d warmup operations: mean %.3f ms +/- %.2f%% (95%% CI).\n",
+        warmupCount, mean / 1e6, 100 * halfWidth / mean
+      );
+
+      return true;
+    }
+
+    /**
+     * Returns the number of warmup operations determined by the MSER rule.
+     * Sums over the tails of the durations are accumulated from the end, so
+     * that each candidate truncation point takes constant time. Durations
+     * are shifted by the last one to avoid cancellation in the variance.
+     */
+    private int getWarmupCount() {
+      final long shift = durations[count - 1];
+
+      double sum = 0;
+      double sumSquares = 0;
+      double bestError = Double.MAX_VALUE;
+      int bestCount = 0;
+
+      for (int first = count - 1; first >= 0; first--) {
+        final double value = durations[first] - shift;
+        sum += value;
+        sumSquares += value * value;
+
+        final int tailCount = count - first;
+        if (tailCount >= MIN_STEADY_COUNT && first <= count / 2) {
+          final double error = (sumSquares - sum * sum / tailCount) / ((double) tailCount * tailCount);
+          if (error <= bestError) {
+            bestError = error;
+            bestCount = first;
+          }
+        }
+      }
+
+      return bestCount;
+    }
+
+    private static double t975(final int degreesOfFreedom) {
+      if (degreesOfFreedom <= T_975.length) {
+        return T_975[degreesOfFreedom - 1];
+      }
+
+      // Cornish-Fisher expansion around the normal quantile.
+      final double z = 1.959964;
+      final double df = degreesOfFreedom;
+      return z + (z * z * z + z) / (4 * df) + (5 * Math.pow(z, 5) + 16 * z * z * z + 3 * z) / (96 * df * df);
+    }
+  }
+
 }
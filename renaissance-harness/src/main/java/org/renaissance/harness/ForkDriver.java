@@ -0,0 +1,369 @@
+package org.renaissance.harness;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Executes benchmarks in child JVMs, each benchmark in a given number of
+ * fresh JVMs (forks). A child runs the harness with the command line of the
+ * parent and a hidden option selecting the benchmark, so it loads the same
+ * plugins and execution policy. Children report measurement results through
+ * their standard output (see {@link ForkResultReporter}), and the parent
+ * passes them to its own listeners as they arrive, adding a {@code fork}
+ * metric with the index of the fork. Other output of a child is copied to the
+ * standard output of the parent.
+ * <p>
+ * Forks can run concurrently. With CPU pinning enabled, the processors
+ * the parent is allowed to run on are split into disjoint sets, one for each
+ * concurrently running fork, and each child is started under {@code taskset}
+ * with the set of the slot it occupies. If there are fewer processors than
+ * concurrent forks, the number of concurrent forks is reduced to keep the
+ * sets disjoint.
+ */
+final class ForkDriver {
+
+  /** Prefix of the lines carrying results from a child to the parent. */
+  static final String MESSAGE_PREFIX = "##renaissance-fork## ";
+
+  /** Message with the results of one operation, as metric=value pairs. */
+  static final String OPERATION_MESSAGE = "operation";
+
+  /** Message reporting a benchmark failure. */
+  static final String FAILURE_MESSAGE = "failure";
+
+  /** Hidden harness option which selects the benchmark to run in a child. */
+  static final String CHILD_OPTION = "--fork-child";
+
+  private final List<String> harnessArgs;
+
+  private final int forkCount;
+
+  private final int jobCount;
+
+  private final boolean pinCpus;
+
+  /** Processors the parent is allowed to run on, only used with pinning. */
+  private final List<Integer> allowedCpus;
+
+  /** The dispatcher for results, only used while holding its monitor. */
+  private final EventDispatcher eventDispatcher;
+
+  private final List<String> javaCommand;
+
+
+  ForkDriver(
+    final List<String> harnessArgs, final int forkCount, final int jobCount,
+    final boolean pinCpus, final EventDispatcher dispatcher
+  ) {
+    this.harnessArgs = harnessArgs;
+    this.forkCount = forkCount;
+    this.pinCpus = pinCpus;
+    this.allowedCpus = pinCpus ? getAllowedCpus() : new ArrayList<>();
+    this.eventDispatcher = dispatcher;
+
+    if (pinCpus && jobCount > allowedCpus.size()) {
+      System.err.printf(
+        "warning: only %d CPUs available for %d concurrent forks, running %d forks concurrently\n",
+        allowedCpus.size(), jobCount, allowedCpus.size()
+      );
+      this.jobCount = allowedCpus.size();
+    } else {
+      this.jobCount = jobCount;
+    }
+
+    this.javaCommand = getJavaCommand();
+  }
+
+
+  /**
+   * Runs all forks of the given benchmarks and returns the names of the
+   * benchmarks with at least one failed fork.
+   */
+  Set<String> executeBenchmarks(List<String> benchmarkNames) throws InterruptedException {
+    final BlockingQueue<Integer> freeSlots = new ArrayBlockingQueue<>(jobCount);
+    for (int slot = 0; slot < jobCount; slot++) {
+      freeSlots.add(slot);
+    }
+
+    final ExecutorService executor = Executors.newFixedThreadPool(jobCount);
+    try {
+      final List<String> forkBenchmarks = new ArrayList<>();
+      final List<Future<Boolean>> forkResults = new ArrayList<>();
+      for (final String benchmark : benchmarkNames) {
+        for (int fork = 0; fork < forkCount; fork++) {
+          final int forkIndex = fork;
+          forkBenchmarks.add(benchmark);
+          forkResults.add(executor.submit(() -> {
+            final int slot = freeSlots.take();
+            try {
+              return executeFork(benchmark, forkIndex, slot);
+            } finally {
+              freeSlots.add(slot);
+            }
+          }));
+        }
+      }
+
+      final Set<String> failedBenchmarks = new LinkedHashSet<>();
+      for (int i = 0; i < forkResults.size(); i++) {
+        try {
+          if (!forkResults.get(i).get()) {
+            failedBenchmarks.add(forkBenchmarks.get(i));
+          }
+        } catch (ExecutionException e) {
+          System.err.printf("Fork of benchmark '%s' failed with exception:\n", forkBenchmarks.get(i));
+          e.getCause().printStackTrace(System.err);
+          failedBenchmarks.add(forkBenchmarks.get(i));
+        }
+      }
+
+      return failedBenchmarks;
+
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+
+  private boolean executeFork(
+    final String benchmark, final int fork, final int slot
+  ) throws IOException, InterruptedException {
+    final List<String> command = new ArrayList<>();
+    if (pinCpus) {
+      command.add("taskset");
+      command.add("-c");
+      command.add(cpuList(slot));
+    }
+
+    command.addAll(javaCommand);
+    command.addAll(harnessArgs);
+    command.add(CHILD_OPTION);
+    command.add(benchmark);
+
+    // Only tag the output of concurrent forks, sequential output is unambiguous.
+    final String outputPrefix = (jobCount > 1) ? String.format("[%s #%d] ", benchmark, fork) : "";
+
+    final Process process = new ProcessBuilder(command)
+      .redirectError(ProcessBuilder.Redirect.INHERIT)
+      .start();
+
+    process.getOutputStream().close();
+
+    boolean failed = false;
+    boolean outputConsumed = false;
+    try (
+      BufferedReader reader = new BufferedReader(
+        new InputStreamReader(process.getInputStream(), StandardCharsets.UTF_8)
+      )
+    ) {
+      String line;
+      while ((line = reader.readLine()) != null) {
+        // Benchmark output without a trailing newline may precede a message.
+        final int messageStart = line.indexOf(MESSAGE_PREFIX);
+        final String message = (messageStart < 0)
+          ? null : line.substring(messageStart + MESSAGE_PREFIX.length());
+
+        if (message == null || !isWellFormed(message)) {
+          if (message != null) {
+            System.err.printf(
+              "warning: malformed message from fork of '%s', treating it as output\n", benchmark
+            );
+          }
+
+          System.out.println(outputPrefix + line);
+          continue;
+        }
+
+        if (messageStart > 0) {
+          System.out.println(outputPrefix + line.substring(0, messageStart));
+        }
+
+        failed |= !dispatchMessage(benchmark, fork, message);
+      }
+
+      outputConsumed = true;
+
+    } finally {
+      // Do not leave the child behind with nobody reading its output.
+      if (!outputConsumed) {
+        process.destroy();
+      }
+    }
+
+    final int exitCode = process.waitFor();
+    if (exitCode != 0 && !failed) {
+      // The child did not get to report the failure (e.g., it crashed).
+      failed = true;
+      synchronized (eventDispatcher) {
+        eventDispatcher.notifyOnBenchmarkFailure(benchmark);
+      }
+    }
+
+    return !failed;
+  }
+
+
+  /**
+   * Checks that a message from a child is either a failure message, or an
+   * operation message consisting of metric=value pairs with integer values.
+   */
+  private static boolean isWellFormed(final String message) {
+    final String[] parts = message.split(" ");
+    if (FAILURE_MESSAGE.equals(message)) {
+      return true;
+    } else if (!OPERATION_MESSAGE.equals(parts[0])) {
+      return false;
+    }
+
+    for (int i = 1; i < parts.length; i++) {
+      final int separator = parts[i].lastIndexOf('=');
+      if (separator <= 0) {
+        return false;
+      }
+
+      try {
+        Long.parseLong(parts[i].substring(separator + 1));
+      } catch (NumberFormatException e) {
+        return false;
+      }
+    }
+
+    return true;
+  }
+
+
+  /**
+   * Passes a well-formed message from a child to the listeners of the parent. All results
+   * of an operation are dispatched at once, so that results of concurrently
+   * running forks do not interleave. Returns {@code false} for failures.
+   */
+  private boolean dispatchMessage(
+    final String benchmark, final int fork, final String message
+  ) {
+    final String[] parts = message.split(" ");
+    synchronized (eventDispatcher) {
+      if (FAILURE_MESSAGE.equals(parts[0])) {
+        eventDispatcher.notifyOnBenchmarkFailure(benchmark);
+        return false;
+      }
+
+      eventDispatcher.notifyOnMeasurementResult(benchmark, "fork", fork);
+      for (int i = 1; i < parts.length; i++) {
+        final int separator = parts[i].lastIndexOf('=');
+        eventDispatcher.notifyOnMeasurementResult(
+          benchmark, parts[i].substring(0, separator),
+          Long.parseLong(parts[i].substring(separator + 1))
+        );
+      }
+
+      return true;
+    }
+  }
+
+
+  /**
+   * Returns the CPU list (for {@code taskset}) of the given slot. The allowed
+   * processors are split into consecutive disjoint sets of (almost) equal size.
+   */
+  private String cpuList(final int slot) {
+    final int cpuCount = allowedCpus.size();
+    final int first = slot * cpuCount / jobCount;
+    final int end = (slot + 1) * cpuCount / jobCount;
+
+    final StringBuilder result = new StringBuilder();
+    for (int i = first; i < end; i++) {
+      if (i > first) {
+        result.append(',');
+      }
+      result.append(allowedCpus.get(i));
+    }
+
+    return result.toString();
+  }
+
+
+  /**
+   * Returns the processors this process is allowed to run on, which may be
+   * restricted by an affinity mask or a cpuset. Falls back to all processors
+   * if the list cannot be determined.
+   */
+  private static List<Integer> getAllowedCpus() {
+    final String field = "Cpus_allowed_list:";
+    try {
+      for (String line : Files.readAllLines(Paths.get("/proc/self/status"), StandardCharsets.US_ASCII)) {
+        if (line.startsWith(field)) {
+          return parseCpuList(line.substring(field.length()).trim());
+        }
+      }
+    } catch (IOException | NumberFormatException e) {
+      // Fall through to the default.
+    }
+
+    final List<Integer> result = new ArrayList<>();
+    for (int cpu = 0; cpu < Runtime.getRuntime().availableProcessors(); cpu++) {
+      result.add(cpu);
+    }
+
+    return result;
+  }
+
+
+  /** Parses a CPU list such as {@code 0-3,8,10-11}. */
+  private static List<Integer> parseCpuList(final String cpuList) {
+    final List<Integer> result = new ArrayList<>();
+    for (String range : cpuList.split(",")) {
+      final String[] bounds = range.split("-", 2);
+      final int first = Integer.parseInt(bounds[0]);
+      final int last = (bounds.length > 1) ? Integer.parseInt(bounds[1]) : first;
+      for (int cpu = first; cpu <= last; cpu++) {
+        result.add(cpu);
+      }
+    }
+
+    return result;
+  }
+
+
+  /**
+   * Reconstructs the command which started this JVM, without program
+   * arguments. JVM options are passed to the children unchanged.
+   */
+  private static List<String> getJavaCommand() {
+    final List<String> result = new ArrayList<>();
+    result.add(Paths.get(System.getProperty("java.home"), "bin", "java").toString());
+    result.addAll(ManagementFactory.getRuntimeMXBean().getInputArguments());
+
+    // When started with -jar, the class path is the JAR and the launcher
+    // command starts with it. Otherwise the command starts with the main
+    // class, which cannot contain spaces (unlike the path of the JAR).
+    final String launcherCommand = System.getProperty("sun.java.command", "");
+    final String classPath = System.getProperty("java.class.path");
+    if (classPath.endsWith(".jar") && launcherCommand.startsWith(classPath)) {
+      result.add("-jar");
+      result.add(classPath);
+    } else {
+      final String mainName = launcherCommand.split(" ", 2)[0];
+      result.add("-cp");
+      result.add(classPath);
+      result.add(mainName.isEmpty() ? "org.renaissance.core.Launcher" : mainName);
+    }
+
+    return result;
+  }
+
+}
@@ -0,0 +1,64 @@
+package org.renaissance.harness;
+
+import org.renaissance.Plugin.AfterOperationSetUpListener;
+import org.renaissance.Plugin.BeforeBenchmarkTearDownListener;
+import org.renaissance.Plugin.BenchmarkFailureListener;
+import org.renaissance.Plugin.MeasurementResultListener;
+
+import java.io.PrintStream;
+
+import static org.renaissance.harness.ForkDriver.FAILURE_MESSAGE;
+import static org.renaissance.harness.ForkDriver.MESSAGE_PREFIX;
+import static org.renaissance.harness.ForkDriver.OPERATION_MESSAGE;
+
+/**
+ * Reports results of a forked harness to the parent harness (see
+ * {@link ForkDriver}). The results of an operation are collected and
+ * written as a single line once the operation is complete, i.e., when
+ * the next operation is set up or the benchmark is being torn down.
+ */
+final class ForkResultReporter implements AfterOperationSetUpListener,
+  BeforeBenchmarkTearDownListener, MeasurementResultListener, BenchmarkFailureListener {
+
+  private final PrintStream output;
+
+  private final StringBuilder pendingResults = new StringBuilder();
+
+  ForkResultReporter(final PrintStream output) {
+    this.output = output;
+  }
+
+  @Override
+  public void afterOperationSetUp(String benchmark, int opIndex, boolean isLastOp) {
+    sendPendingResults();
+  }
+
+  @Override
+  public void beforeBenchmarkTearDown(String benchmark) {
+    sendPendingResults();
+  }
+
+  @Override
+  public void onMeasurementResult(String benchmark, String metric, long value) {
+    pendingResults.append(' ').append(metric).append('=').append(value);
+  }
+
+  @Override
+  public void onBenchmarkFailure(String benchmark) {
+    sendPendingResults();
+    send(FAILURE_MESSAGE);
+  }
+
+  private void sendPendingResults() {
+    if (pendingResults.length() > 0) {
+      send(OPERATION_MESSAGE + pendingResults);
+      pendingResults.setLength(0);
+    }
+  }
+
+  private void send(String message) {
+    output.println(MESSAGE_PREFIX + message);
+    output.flush();
+  }
+
+}
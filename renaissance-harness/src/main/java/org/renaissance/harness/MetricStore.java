@@ -0,0 +1,142 @@
+package org.renaissance.harness;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Stores values of measurement metrics without boxing. Each (benchmark,
+ * metric) pair is interned into an integer handle when it first appears,
+ * and the values of the pair are appended to a growable {@code long} array
+ * (a column) identified by the handle.
+ * <p>
+ * Once a pair is known, looking up its handle takes two lookups in maps
+ * keyed by strings (which cache their hash codes), and appending a value
+ * only allocates when the column needs to grow. Consecutive results of the
+ * same benchmark skip the benchmark lookup.
+ */
+final class MetricStore {
+
+  private static final int INITIAL_CAPACITY = 16;
+
+  /** Metric handles of each benchmark, in the order of first appearance. */
+  private final Map<String, Map<String, Integer>> handlesByBenchmark = new LinkedHashMap<>();
+
+  /** Columns of values, indexed by metric handles. */
+  private final List<Column> columns = new ArrayList<>();
+
+  private String lastBenchmark;
+
+  private Map<String, Integer> lastHandles;
+
+  //
+
+  /**
+   * Returns the handle of the given benchmark metric, registering a new
+   * (empty) column if the metric has not been seen before.
+   */
+  int handle(final String benchmark, final String metric) {
+    if (!benchmark.equals(lastBenchmark)) {
+      lastHandles = handlesByBenchmark.computeIfAbsent(benchmark, b -> new HashMap<>());
+      lastBenchmark = benchmark;
+    }
+
+    final Integer handle = lastHandles.get(metric);
+    if (handle != null) {
+      return handle;
+    }
+
+    final int newHandle = columns.size();
+    columns.add(new Column(benchmark, metric));
+    lastHandles.put(metric, newHandle);
+    return newHandle;
+  }
+
+
+  void add(final int handle, final long value) {
+    columns.get(handle).add(value);
+  }
+
+
+  void add(final String benchmark, final String metric, final long value) {
+    add(handle(benchmark, metric), value);
+  }
+
+
+  /** Returns the benchmark names in the order of their first result. */
+  Set<String> benchmarks() {
+    return handlesByBenchmark.keySet();
+  }
+
+
+  /** Returns all columns in the order of their registration. */
+  Collection<Column> columns() {
+    return columns;
+  }
+
+
+  /** Returns the columns of the given benchmark, keyed by metric name. */
+  Map<String, Column> columns(final String benchmark) {
+    final Map<String, Column> result = new HashMap<>();
+    final Map<String, Integer> handles = handlesByBenchmark.get(benchmark);
+    if (handles != null) {
+      handles.forEach((metric, handle) -> result.put(metric, columns.get(handle)));
+    }
+
+    return result;
+  }
+
+  //
+
+  /**
+   * Values of a single benchmark metric, in the order of publication.
+   */
+  static final class Column {
+    private final String benchmark;
+
+    private final String metric;
+
+    private long[] values = new long[INITIAL_CAPACITY];
+
+    private int size;
+
+    private Column(final String benchmark, final String metric) {
+      this.benchmark = benchmark;
+      this.metric = metric;
+    }
+
+    String benchmark() {
+      return benchmark;
+    }
+
+    String metric() {
+      return metric;
+    }
+
+    int size() {
+      return size;
+    }
+
+    long get(final int index) {
+      if (index >= size) {
+        throw new IndexOutOfBoundsException("index: " + index + ", size: " + size);
+      }
+
+      return values[index];
+    }
+
+    void add(final long value) {
+      if (size == values.length) {
+        values = Arrays.copyOf(values, 2 * size);
+      }
+
+      values[size++] = value;
+    }
+  }
+
+}
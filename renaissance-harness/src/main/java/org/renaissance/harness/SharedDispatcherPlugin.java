@@ -0,0 +1,115 @@
+package org.renaissance.harness;
+
+import org.renaissance.Plugin.AfterBenchmarkSetUpListener;
+import org.renaissance.Plugin.AfterBenchmarkTearDownListener;
+import org.renaissance.Plugin.AfterOperationSetUpListener;
+import org.renaissance.Plugin.BeforeBenchmarkSetUpListener;
+import org.renaissance.Plugin.BeforeBenchmarkTearDownListener;
+import org.renaissance.Plugin.BeforeOperationTearDownListener;
+import org.renaissance.Plugin.BenchmarkFailureListener;
+import org.renaissance.Plugin.MeasurementResultListener;
+import org.renaissance.Plugin.MeasurementResultPublisher;
+
+/**
+ * Forwards the events of one of several co-located benchmarks to the
+ * dispatcher shared by all of them. Each co-located benchmark is executed
+ * by its own {@link ExecutionDriver} with a private dispatcher, which holds
+ * the execution policy of the benchmark and this plugin. The shared
+ * dispatcher holds the plugins and result writers, which are not expected
+ * to be thread-safe, so events are only forwarded while holding its monitor.
+ * <p>
+ * The plugin is also used for the points of a parameter sweep, where the
+ * name of each forwarded benchmark is tagged with a suffix identifying the
+ * values of the swept parameters. Results published by the plugins of the
+ * shared dispatcher go directly to its listeners, and are therefore only
+ * tagged once.
+ * <p>
+ * Harness events are not forwarded, the harness sends them to the shared
+ * dispatcher directly.
+ */
+final class SharedDispatcherPlugin implements BeforeBenchmarkSetUpListener,
+  AfterBenchmarkTearDownListener, AfterBenchmarkSetUpListener,
+  BeforeBenchmarkTearDownListener, AfterOperationSetUpListener,
+  BeforeOperationTearDownListener, MeasurementResultListener,
+  MeasurementResultPublisher, BenchmarkFailureListener {
+
+  private final EventDispatcher sharedDispatcher;
+
+  private final String benchmarkSuffix;
+
+  SharedDispatcherPlugin(final EventDispatcher sharedDispatcher, final String benchmarkSuffix) {
+    this.sharedDispatcher = sharedDispatcher;
+    this.benchmarkSuffix = benchmarkSuffix;
+  }
+
+  @Override
+  public void beforeBenchmarkSetUp(String benchmark) {
+    synchronized (sharedDispatcher) {
+      sharedDispatcher.notifyBeforeBenchmarkSetUp(benchmark + benchmarkSuffix);
+    }
+  }
+
+  @Override
+  public void afterBenchmarkTearDown(String benchmark) {
+    synchronized (sharedDispatcher) {
+      sharedDispatcher.notifyAfterBenchmarkTearDown(benchmark + benchmarkSuffix);
+    }
+  }
+
+  @Override
+  public void afterBenchmarkSetUp(String benchmark) {
+    synchronized (sharedDispatcher) {
+      sharedDispatcher.notifyAfterBenchmarkSetUp(benchmark + benchmarkSuffix);
+    }
+  }
+
+  @Override
+  public void beforeBenchmarkTearDown(String benchmark) {
+    synchronized (sharedDispatcher) {
+      sharedDispatcher.notifyBeforeBenchmarkTearDown(benchmark + benchmarkSuffix);
+    }
+  }
+
+  @Override
+  public void afterOperationSetUp(String benchmark, int opIndex, boolean isLastOp) {
+    synchronized (sharedDispatcher) {
+      sharedDispatcher.notifyAfterOperationSetUp(benchmark + benchmarkSuffix, opIndex, isLastOp);
+    }
+  }
+
+  @Override
+  public void beforeOperationTearDown(String benchmark, int opIndex, long durationNanos) {
+    synchronized (sharedDispatcher) {
+      sharedDispatcher.notifyBeforeOperationTearDown(
+        benchmark + benchmarkSuffix, opIndex, durationNanos
+      );
+    }
+  }
+
+  @Override
+  public void onMeasurementResult(String benchmark, String metric, long value) {
+    synchronized (sharedDispatcher) {
+      sharedDispatcher.notifyOnMeasurementResult(benchmark + benchmarkSuffix, metric, value);
+    }
+  }
+
+  @Override
+  public void onMeasurementResultsRequested(
+    String benchmark, int opIndex, MeasurementResultListener dispatcher
+  ) {
+    // Results of one operation are published to the listeners at once.
+    synchronized (sharedDispatcher) {
+      sharedDispatcher.notifyOnMeasurementResultsRequested(
+        benchmark + benchmarkSuffix, opIndex, sharedDispatcher::notifyOnMeasurementResult
+      );
+    }
+  }
+
+  @Override
+  public void onBenchmarkFailure(String benchmark) {
+    synchronized (sharedDispatcher) {
+      sharedDispatcher.notifyOnBenchmarkFailure(benchmark + benchmarkSuffix);
+    }
+  }
+
+}
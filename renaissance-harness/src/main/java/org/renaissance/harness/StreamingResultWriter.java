@@ -0,0 +1,404 @@
+package org.renaissance.harness;
+
+import org.renaissance.Plugin.AfterOperationSetUpListener;
+import org.renaissance.Plugin.BeforeBenchmarkTearDownListener;
+import org.renaissance.Plugin.BeforeHarnessShutdownListener;
+import org.renaissance.Plugin.BenchmarkFailureListener;
+import org.renaissance.Plugin.MeasurementResultListener;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.management.ManagementFactory;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Provides common functionality for result writers which append the results
+ * of each operation to a file as soon as the operation completes, instead of
+ * collecting all results in memory like the {@link ResultWriter}. Memory use
+ * therefore does not grow with the number of operations.
+ * <p>
+ * The results of an operation are complete when the next operation is set
+ * up, when the benchmark is being torn down, or when a metric that has
+ * already been collected is published again. The last case covers results
+ * forwarded from forked JVMs, which arrive without operation events.
+ * <p>
+ * Formatted rows are collected in a buffer which is written to the file
+ * when full, at least once per {@link #FLUSH_INTERVAL_NANOS}, and at the
+ * end of each benchmark. The periodic flush happens on a background thread,
+ * so that results do not stay buffered during long operations. Forcefully
+ * killing the JVM therefore only loses the most recent results. A shutdown
+ * hook writes out the buffer if the JVM is terminated by a signal that still
+ * lets it run shutdown hooks.
+ * <p>
+ * Subclasses are expected to only override the {@link #formatRow} and
+ * {@link #formatFailure} methods, which format a single line of output.
+ */
+abstract class StreamingResultWriter implements AfterOperationSetUpListener,
+  BeforeBenchmarkTearDownListener, MeasurementResultListener, BenchmarkFailureListener,
+  BeforeHarnessShutdownListener {
+
+  private static final int BUFFER_SIZE = 64 * 1024;
+
+  /** Maximal time between writing buffered results to the file. */
+  static final long FLUSH_INTERVAL_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+  private final FileChannel channel;
+
+  private final ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+
+  private final CharsetEncoder encoder = StandardCharsets.UTF_8.newEncoder();
+
+  private final StringBuilder line = new StringBuilder();
+
+  /** Results of the operation in progress, for each benchmark. */
+  private final Map<String, Row> pendingRows = new HashMap<>();
+
+  private final Thread storeHook = new Thread(() -> close(false));
+
+  private final ScheduledExecutorService flusher = Executors.newSingleThreadScheduledExecutor(r -> {
+    final Thread thread = new Thread(r, "renaissance-result-flusher");
+    thread.setDaemon(true);
+    return thread;
+  });
+
+  private long lastFlushNanos = System.nanoTime();
+
+  private boolean closed;
+
+
+  StreamingResultWriter(final Path outputFile) {
+    try {
+      channel = FileChannel.open(
+        outputFile,
+        StandardOpenOption.CREATE,
+        StandardOpenOption.WRITE,
+        StandardOpenOption.TRUNCATE_EXISTING
+      );
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+
+    Runtime.getRuntime().addShutdownHook(storeHook);
+
+    flusher.scheduleWithFixedDelay(
+      this::flushIfDue, FLUSH_INTERVAL_NANOS, FLUSH_INTERVAL_NANOS, TimeUnit.NANOSECONDS
+    );
+  }
+
+
+  @Override
+  public final synchronized void afterOperationSetUp(
+    String benchmark, int opIndex, boolean isLastOp
+  ) {
+    writePendingRow(benchmark);
+  }
+
+
+  @Override
+  public final synchronized void beforeBenchmarkTearDown(String benchmark) {
+    writePendingRow(benchmark);
+    pendingRows.remove(benchmark);
+    flush();
+  }
+
+
+  @Override
+  public final synchronized void onMeasurementResult(
+    String benchmark, String metric, long value
+  ) {
+    final Row row = pendingRows.computeIfAbsent(benchmark, b -> new Row());
+    if (row.indexOf(metric) >= 0) {
+      // A repeated metric starts the results of another operation.
+      writePendingRow(benchmark);
+    }
+
+    row.add(metric, value);
+  }
+
+
+  @Override
+  public final synchronized void onBenchmarkFailure(String benchmark) {
+    writePendingRow(benchmark);
+    formatFailure(benchmark, line);
+    if (line.length() > 0) {
+      writeLine();
+    }
+
+    flush();
+  }
+
+
+  @Override
+  public final void beforeHarnessShutdown() {
+    close(true);
+  }
+
+
+  private synchronized void close(final boolean normalTermination) {
+    if (closed) {
+      return;
+    }
+
+    if (normalTermination) {
+      Runtime.getRuntime().removeShutdownHook(storeHook);
+    }
+
+    flusher.shutdown();
+
+    for (final String benchmark : pendingRows.keySet()) {
+      writePendingRow(benchmark);
+    }
+
+    flush();
+
+    try {
+      channel.close();
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+
+    closed = true;
+  }
+
+
+  private void writePendingRow(final String benchmark) {
+    final Row row = pendingRows.get(benchmark);
+    if (row == null || row.size() == 0) {
+      return;
+    }
+
+    formatRow(benchmark, row, line);
+    row.clear();
+    writeLine();
+  }
+
+
+  private synchronized void flushIfDue() {
+    final long sinceFlushNanos = System.nanoTime() - lastFlushNanos;
+    if (!closed && buffer.position() > 0 && sinceFlushNanos >= FLUSH_INTERVAL_NANOS) {
+      flush();
+    }
+  }
+
+
+  private void writeLine() {
+    line.append('\n');
+
+    final CharBuffer chars = CharBuffer.wrap(line);
+    while (encoder.encode(chars, buffer, true).isOverflow()) {
+      flush();
+    }
+
+    encoder.reset();
+    line.setLength(0);
+  }
+
+
+  private void flush() {
+    buffer.flip();
+    try {
+      while (buffer.hasRemaining()) {
+        channel.write(buffer);
+      }
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    } finally {
+      buffer.clear();
+    }
+
+    lastFlushNanos = System.nanoTime();
+  }
+
+  //
+
+  /**
+   * Formats the results of a single operation, without the line separator.
+   */
+  protected abstract void formatRow(String benchmark, Row row, StringBuilder output);
+
+
+  /**
+   * Formats a record of a benchmark failure, without the line separator.
+   * Does nothing if the format cannot represent failures.
+   */
+  protected abstract void formatFailure(String benchmark, StringBuilder output);
+
+  //
+
+  /**
+   * Metric values of a single operation, in the order of publication.
+   * Values are kept unboxed and the row is reused between operations.
+   */
+  static final class Row {
+    private final List<String> metrics = new ArrayList<>();
+
+    private long[] values = new long[8];
+
+    int size() {
+      return metrics.size();
+    }
+
+    String metric(final int index) {
+      return metrics.get(index);
+    }
+
+    long value(final int index) {
+      return values[index];
+    }
+
+    int indexOf(final String metric) {
+      return metrics.indexOf(metric);
+    }
+
+    void add(final String metric, final long value) {
+      final int index = metrics.size();
+      if (index == values.length) {
+        values = Arrays.copyOf(values, 2 * index);
+      }
+
+      metrics.add(metric);
+      values[index] = value;
+    }
+
+    void clear() {
+      metrics.clear();
+    }
+  }
+
+  //
+
+  /**
+   * Writes results as CSV with the columns of the {@link CsvWriter}. The
+   * columns are determined by the first row. If a later row contains a
+   * metric without a column, a new header line precedes the row. Missing
+   * values are written as {@code NA}. Failures are not recorded.
+   */
+  static final class Csv extends StreamingResultWriter {
+    private final String vmStartSuffix;
+
+    private String[] columns = new String[0];
+
+    Csv(final Path csvFile, final long vmStartNanos) {
+      super(csvFile);
+
+      final long vmStartTime = ManagementFactory.getRuntimeMXBean().getStartTime();
+      this.vmStartSuffix = "," + vmStartTime + "," + vmStartNanos;
+    }
+
+    @Override
+    protected void formatRow(String benchmark, Row row, StringBuilder output) {
+      if (!hasColumns(row)) {
+        columns = new String[row.size()];
+        for (int i = 0; i < columns.length; i++) {
+          columns[i] = row.metric(i);
+        }
+
+        Arrays.sort(columns);
+        formatHeader(output);
+      }
+
+      output.append(benchmark);
+      for (final String column : columns) {
+        final int index = row.indexOf(column);
+        output.append(',');
+        if (index >= 0) {
+          output.append(row.value(index));
+        } else {
+          output.append("NA");
+        }
+      }
+
+      output.append(vmStartSuffix);
+    }
+
+    private boolean hasColumns(final Row row) {
+      for (int i = 0; i < row.size(); i++) {
+        if (Arrays.binarySearch(columns, row.metric(i)) < 0) {
+          return false;
+        }
+      }
+
+      return true;
+    }
+
+    private void formatHeader(final StringBuilder output) {
+      output.append("benchmark");
+      for (final String column : columns) {
+        output.append(',').append(column);
+      }
+
+      output.append(",vm_start_unix_ms,vm_start_ns\n");
+    }
+
+    @Override
+    protected void formatFailure(String benchmark, StringBuilder output) {
+      // Failures have no representation in the CSV output.
+    }
+  }
+
+  //
+
+  /**
+   * Writes results as JSON Lines, one object per operation with the name
+   * of the benchmark and the metric values. A failure is recorded as an
+   * object with the name of the benchmark and a {@code termination} field
+   * set to {@code failure}, like in the output of the {@link JsonWriter}.
+   */
+  static final class JsonLines extends StreamingResultWriter {
+
+    JsonLines(final Path jsonFile) {
+      super(jsonFile);
+    }
+
+    @Override
+    protected void formatRow(String benchmark, Row row, StringBuilder output) {
+      output.append("{\"benchmark\":");
+      appendString(benchmark, output);
+      for (int i = 0; i < row.size(); i++) {
+        output.append(',');
+        appendString(row.metric(i), output);
+        output.append(':').append(row.value(i));
+      }
+
+      output.append('}');
+    }
+
+    @Override
+    protected void formatFailure(String benchmark, StringBuilder output) {
+      output.append("{\"benchmark\":");
+      appendString(benchmark, output);
+      output.append(",\"termination\":\"failure\"}");
+    }
+
+    private static void appendString(final String value, final StringBuilder output) {
+      output.append('"');
+      for (int i = 0; i < value.length(); i++) {
+        final char c = value.charAt(i);
+        if (c == '"' || c == '\\') {
+          output.append('\\').append(c);
+        } else if (c < 0x20) {
+          output.append(String.format("\\u%04x", (int) c));
+        } else {
+          output.append(c);
+        }
+      }
+
+      output.append('"');
+    }
+  }
+
+}
@@ -0,0 +1,124 @@
+package org.renaissance.harness;
+
+import org.renaissance.Plugin.MeasurementResultListener;
+
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Summarizes how the benchmarks executed at the points of a parameter sweep
+ * scale relative to the first point. Each point is represented by the median
+ * of operation durations, which is robust against slow warmup operations.
+ * <p>
+ * The speedup of a point is the ratio of the median duration at the first
+ * point to the median duration at the given point. The parallel efficiency
+ * divides the speedup by the relative amount of resources used at the point,
+ * which is the product of the integer values of the swept parameters (e.g.,
+ * the number of threads). The efficiency is omitted if the swept parameters
+ * have no integer values.
+ */
+final class SweepReport implements MeasurementResultListener {
+
+  private static final String DURATION_METRIC = "duration_ns";
+
+  /** Points of the sweep for each benchmark, in the order of execution. */
+  private final Map<String, List<Point>> pointsByBenchmark = new LinkedHashMap<>();
+
+  private final MetricStore durations = new MetricStore();
+
+  //
+
+  /**
+   * Registers a sweep point of the given benchmark. The results of the point
+   * are published under the given result name.
+   *
+   * @param scale product of integer parameter values, or 0 if there is none
+   */
+  void addPoint(
+    final String benchmark, final String resultName, final String label, final long scale
+  ) {
+    pointsByBenchmark
+      .computeIfAbsent(benchmark, b -> new ArrayList<>())
+      .add(new Point(resultName, label, scale));
+  }
+
+
+  @Override
+  public void onMeasurementResult(String benchmark, String metric, long value) {
+    if (DURATION_METRIC.equals(metric)) {
+      durations.add(benchmark, metric, value);
+    }
+  }
+
+
+  void print(final PrintStream output) {
+    pointsByBenchmark.forEach((benchmark, points) -> {
+      output.printf("Sweep of '%s' (median operation duration):%n", benchmark);
+
+      Point base = null;
+      double baseMedian = 0;
+      for (final Point point : points) {
+        final MetricStore.Column column = durations.columns(point.resultName).get(DURATION_METRIC);
+        if (column == null || column.size() == 0) {
+          output.printf("  %-32s no results%n", point.label);
+          continue;
+        }
+
+        final double median = median(column);
+        if (base == null) {
+          base = point;
+          baseMedian = median;
+        }
+
+        final double speedup = baseMedian / median;
+        output.printf(
+          "  %-32s %12.3f ms  speedup %6.2f", point.label, median / 1e6, speedup
+        );
+
+        if (base.scale > 0 && point.scale > 0) {
+          output.printf("  efficiency %6.2f", speedup * base.scale / point.scale);
+        }
+
+        output.println();
+      }
+    });
+  }
+
+
+  private static double median(final MetricStore.Column column) {
+    final long[] values = new long[column.size()];
+    for (int i = 0; i < values.length; i++) {
+      values[i] = column.get(i);
+    }
+
+    Arrays.sort(values);
+
+    final int middle = values.length / 2;
+    if (values.length % 2 == 1) {
+      return values[middle];
+    } else {
+      return (values[middle - 1] + values[middle]) / 2.0;
+    }
+  }
+
+  //
+
+  private static final class Point {
+    final String resultName;
+
+    final String label;
+
+    final long scale;
+
+    Point(final String resultName, final String label, final long scale) {
+      this.resultName = resultName;
+      this.label = label;
+      this.scale = scale;
+    }
+  }
+
+}
@@ -98,6 +98,32 @@ private final class Config {
     this
   }
 
+  /**
+   * Required precision of the steady-state mean, as a fraction of the mean,
+   * and bounds on the number of operations executed by the steady-state policy.
+   */
+  var steadyStatePrecision = 0.01
+
+  def withSteadyState(percent: Double) = {
+    policyType = PolicyType.STEADY_STATE
+    steadyStatePrecision = percent / 100
+    this
+  }
+
+  var steadyStateMinCount = 10
+
+  def withSteadyStateMinCount(count: Int) = {
+    steadyStateMinCount = count
+    this
+  }
+
+  var steadyStateMaxCount = 1000
+
+  def withSteadyStateMaxCount(count: Int) = {
+    steadyStateMaxCount = count
+    this
+  }
+
   /**
    * External policy specifier. Valid only when policyType is EXTERNAL.
    */
@@ -109,6 +135,69 @@ private final class Config {
     withPlugin(specifier)
   }
 
+  /**
+   * Number of fresh JVMs (forks) to execute each benchmark in. Zero means
+   * that benchmarks are executed in the harness JVM.
+   */
+  var forks = 0
+
+  def withForks(count: Int) = {
+    forks = count
+    this
+  }
+
+  /**
+   * Maximal number of forks executing at the same time.
+   */
+  var forkJobs = 1
+
+  def withForkJobs(count: Int) = {
+    forkJobs = count
+    this
+  }
+
+  /**
+   * Pin concurrently executing forks to disjoint sets of CPUs.
+   */
+  var forkPinning = false
+
+  def withForkPinning() = {
+    forkPinning = true
+    this
+  }
+
+  /**
+   * The benchmark to execute in a forked harness. Only set by the parent
+   * harness when starting a fork, overrides the benchmark specifiers.
+   */
+  var forkChild: Option[String] = None
+
+  def withForkChild(benchmark: String) = {
+    forkChild = Some(benchmark)
+    this
+  }
+
+  /**
+   * Number of threads executing the measured operation concurrently.
+   */
+  var operationThreads = 1
+
+  def withOperationThreads(count: Int) = {
+    operationThreads = count
+    this
+  }
+
+  /**
+   * A flag which tells the harness to execute the selected benchmarks
+   * concurrently, each in its own thread and with its own policy.
+   */
+  var colocate = false
+
+  def withColocation(benchmarks: String) = {
+    colocate = true
+    withBenchmarkSpecification(benchmarks)
+  }
+
   /**
    * Name of the file to use for CSV output.
    */
@@ -129,6 +218,26 @@ private final class Config {
     this
   }
 
+  /**
+   * Name of the file to use for streaming CSV output.
+   */
+  var csvStreamOutput: Option[Path] = None
+
+  def withCsvStreamOutput(outputFile: String) = {
+    csvStreamOutput = Some(Paths.get(outputFile))
+    this
+  }
+
+  /**
+   * Name of the file to use for JSON Lines output.
+   */
+  var jsonLinesOutput: Option[Path] = None
+
+  def withJsonLinesOutput(outputFile: String) = {
+    jsonLinesOutput = Some(Paths.get(outputFile))
+    this
+  }
+
   /**
    * A flag which tells the harness to only print a list of all
    * benchmarks in a human-readable form.
@@ -184,6 +293,19 @@ private final class Config {
     this
   }
 
+  /**
+   * Values of configuration parameters to sweep over, in the order of
+   * specification. The benchmarks are executed once for each combination
+   * of the values of all swept parameters.
+   */
+  val sweeps = mutable.LinkedHashMap[String, Seq[String]]()
+
+  def withSweep(specifier: String) = {
+    val parts = specifier.split("=", 2).map(_.trim)
+    sweeps += (parts(0) -> parts(1).split(",").map(_.trim).toSeq)
+    this
+  }
+
   /**
    * Force garbage collection before executing the measured operation. This is
    * enabled by default to avoid accumulating garbage between operations which
@@ -265,7 +387,7 @@ private final class Config {
 
 private object PolicyType extends Enumeration {
   type PolicyType = Value
-  val FIXED_OP_COUNT, FIXED_OP_TIME, FIXED_TIME, EXTERNAL = Value
+  val FIXED_OP_COUNT, FIXED_OP_TIME, FIXED_TIME, STEADY_STATE, EXTERNAL = Value
 }
 
 /**
@@ -38,6 +38,29 @@ private final class ConfigParser(tags: Map[String, String]) {
         .action((v, c) => c.withOperationRunSeconds(v))
         .maxOccurs(1)
 
+      opt[Double]("steady-state")
+        .valueName("<percent>")
+        .text(
+          "Execute the measured operation until the 95% confidence interval of the steady-state mean is within <percent> of the mean."
+        )
+        .validate(v => if (v > 0) success else failure("<percent> must be greater than 0"))
+        .action((v, c) => c.withSteadyState(v))
+        .maxOccurs(1)
+
+      opt[Int]("steady-state-min")
+        .valueName("<count>")
+        .text("Execute at least <count> operations with --steady-state. Defaults to 10.")
+        .validate(v => if (v > 0) success else failure("<count> must be greater than 0"))
+        .action((v, c) => c.withSteadyStateMinCount(v))
+        .maxOccurs(1)
+
+      opt[Int]("steady-state-max")
+        .valueName("<count>")
+        .text("Execute at most <count> operations with --steady-state. Defaults to 1000.")
+        .validate(v => if (v > 0) success else failure("<count> must be greater than 0"))
+        .action((v, c) => c.withSteadyStateMaxCount(v))
+        .maxOccurs(1)
+
       opt[String]("policy")
         .valueName("<class-path>!<class-name>")
         .text("Use policy plugin to control repetition of measured operation execution.")
@@ -64,6 +87,46 @@ private final class ConfigParser(tags: Map[String, String]) {
         .action((v, c) => c.withExtraArg(v))
         .unbounded()
 
+      opt[Int]("forks")
+        .valueName("<count>")
+        .text("Execute each benchmark in <count> fresh JVMs instead of the harness JVM.")
+        .validate(v => if (v > 0) success else failure("<count> must be greater than 0"))
+        .action((v, c) => c.withForks(v))
+        .maxOccurs(1)
+
+      opt[Int]("fork-jobs")
+        .valueName("<count>")
+        .text("Execute up to <count> forks concurrently. Defaults to 1.")
+        .validate(v => if (v > 0) success else failure("<count> must be greater than 0"))
+        .action((v, c) => c.withForkJobs(v))
+        .maxOccurs(1)
+
+      opt[Unit]("fork-pin-cpus")
+        .text("Pin concurrent forks to disjoint sets of CPUs using taskset (Linux only).")
+        .action((_, c) => c.withForkPinning())
+
+      opt[String](ForkDriver.CHILD_OPTION.stripPrefix("--"))
+        .hidden()
+        .action((v, c) => c.withForkChild(v))
+        .maxOccurs(1)
+
+      opt[Int]("operation-threads")
+        .valueName("<count>")
+        .text(
+          "Execute the measured operation concurrently in <count> threads, each with its own benchmark instance unless the benchmark is thread-safe."
+        )
+        .validate(v => if (v > 0) success else failure("<count> must be greater than 0"))
+        .action((v, c) => c.withOperationThreads(v))
+        .maxOccurs(1)
+
+      opt[String]("colocate")
+        .valueName("<benchmarks>")
+        .text(
+          "Execute the given comma-separated benchmarks concurrently, each in its own thread. Cannot be combined with --plugin."
+        )
+        .action((v, c) => c.withColocation(v))
+        .maxOccurs(1)
+
       opt[String]("csv")
         .valueName("<csv-file>")
         .text("Output results as CSV to <csv-file>.")
@@ -76,6 +139,18 @@ private final class ConfigParser(tags: Map[String, String]) {
         .action((v, c) => c.withJsonOutput(v))
         .maxOccurs(1)
 
+      opt[String]("csv-stream")
+        .valueName("<csv-file>")
+        .text("Append results as CSV to <csv-file> after each operation.")
+        .action((v, c) => c.withCsvStreamOutput(v))
+        .maxOccurs(1)
+
+      opt[String]("jsonl")
+        .valueName("<jsonl-file>")
+        .text("Append results as JSON Lines to <jsonl-file> after each operation.")
+        .action((v, c) => c.withJsonLinesOutput(v))
+        .maxOccurs(1)
+
       opt[String]('c', "configuration")
         .valueName("<conf-name>")
         .text("Use benchmark parameters from configuration <conf-name>.")
@@ -92,6 +167,19 @@ private final class ConfigParser(tags: Map[String, String]) {
         .action((v, c) => c.withParameterOverride(v))
         .unbounded()
 
+      opt[String]("sweep")
+        .valueName("<name>=<values>")
+        .text(
+          "Execute the benchmarks once for each of the comma-separated <values> of configuration parameter <name>. Multiple sweeps execute all combinations of values."
+        )
+        .validate(v =>
+          if (v.indexOf('=') > 0 && v.split("=", 2)(1).split(",", -1).forall(_.trim.nonEmpty))
+            success
+          else failure("expected <name>=<value>,<value>,... in parameter sweep")
+        )
+        .action((v, c) => c.withSweep(v))
+        .unbounded()
+
       opt[String]("scratch-base")
         .valueName("<dir>")
         .text("Create scratch directories in <dir>. Defaults to current directory.")
@@ -141,6 +229,28 @@ private final class ConfigParser(tags: Map[String, String]) {
         .action((v, c) => c.withBenchmarkSpecification(v))
         .unbounded()
         .optional()
+
+      checkConfig(c =>
+        if (c.steadyStateMinCount <= c.steadyStateMaxCount) success
+        else failure("--steady-state-min must not exceed --steady-state-max")
+      )
+
+      checkConfig(c =>
+        if (!c.colocate) success
+        else if (c.forks > 0) failure("--colocate cannot be combined with --forks")
+        else if (c.policyType == PolicyType.EXTERNAL) failure("--colocate requires a built-in policy")
+        // Plugins keep per-operation state that co-located benchmarks would overwrite.
+        else if (c.pluginsWithArgs.nonEmpty) failure("--colocate cannot be combined with --plugin")
+        else success
+      )
+
+      checkConfig(c =>
+        if (c.sweeps.isEmpty) success
+        else if (c.forks > 0) failure("--sweep cannot be combined with --forks")
+        else if (c.colocate) failure("--sweep cannot be combined with --colocate")
+        else if (c.policyType == PolicyType.EXTERNAL) failure("--sweep requires a built-in policy")
+        else success
+      )
     }
   }
 
@@ -13,9 +13,11 @@ import org.renaissance.core.DirUtils
 import org.renaissance.harness.ExecutionPolicies.FixedOpCount
 import org.renaissance.harness.ExecutionPolicies.FixedOpTime
 import org.renaissance.harness.ExecutionPolicies.FixedTime
+import org.renaissance.harness.ExecutionPolicies.SteadyState
 
 import java.io.PrintStream
 import java.nio.file.Files
+import java.nio.file.Path
 import java.nio.file.Paths
 import java.util.Locale
 import java.util.concurrent.TimeUnit.MILLISECONDS
@@ -55,21 +57,7 @@ object RenaissanceSuite {
     )
 
     // Create benchmark suite core.
-    val suite: BenchmarkSuite = Try(
-      BenchmarkSuite.create(
-        scratchRoot,
-        config.configuration,
-        config.benchmarkMetadataOverrideUri,
-        config.parameterOverrides.asJava,
-        getManifestUseModulesValue.orElse(config.useModules)
-      )
-    ) match {
-      case Success(suite) => suite
-      case Failure(cause) =>
-        Console.err.println("error: unable to initialize benchmark suite")
-        printCauseChain(cause, Console.err)
-        sys.exit(1)
-    }
+    val suite = createSuite(config, scratchRoot, config.parameterOverrides)
 
     // Load information about available benchmarks.
     val realBenchmarks = suite.getMatchingBenchmarks(benchmarkIsReal).asScala
@@ -86,50 +74,126 @@ object RenaissanceSuite {
     } else if (config.benchmarkSpecifiers.isEmpty) {
       print(parser.usage())
     } else {
-      // Collect specified benchmarks compatible with the JVM.
-      var benchmarks = selectBenchmarks(suite, config.benchmarkSpecifiers)
+      // Collect specified benchmarks compatible with the JVM. A forked
+      // harness only executes the benchmark selected by its parent.
+      var benchmarks = config.forkChild match {
+        case Some(name) => Seq(suite.getBenchmark(name))
+        case None => selectBenchmarks(suite, config.benchmarkSpecifiers)
+      }
       if (config.checkJvm) {
         benchmarks = excludeIncompatible(suite, benchmarks)
       }
 
-      // Load all plugins in given order (including external policy).
-      val externalPlugins = loadExternalPlugins(suite, config.pluginsWithArgs)
+      val failedBenchmarks = if (config.forks > 0 && config.forkChild.isEmpty) {
+        // The forks load plugins and policy, the parent only writes results.
+        val vmStartNanos = getVmStartNanos
+        val writers = createResultWriters(config, vmStartNanos)
+        val streamingWriters = createStreamingResultWriters(config, vmStartNanos)
+        val dispatcher = createEventDispatcher(Seq(), writers, streamingWriters)
+        val driver = new ForkDriver(
+          args.toSeq.asJava,
+          config.forks,
+          config.forkJobs,
+          config.forkPinning,
+          dispatcher
+        )
 
-      //
-      // Get effective execution policy (built-in or external) and if using
-      // a built-in policy, prepend it to list of plugins (external policy
-      // will be among the external plugins specified on the command line).
-      //
-      var plugins = externalPlugins.values.toSeq
+        // Note: no access to Config beyond this point.
+        runForkedBenchmarks(driver, benchmarks, dispatcher)
 
-      val policy = getExecutionPolicy(config, benchmarks, externalPlugins)
-      if (config.policyType != PolicyType.EXTERNAL) {
-        plugins = policy +: plugins
-      }
+      } else {
+        // Load all plugins in given order (including external policy).
+        val externalPlugins = loadExternalPlugins(suite, config.pluginsWithArgs)
 
-      //
-      // (Optionally) register the built-in plugin to force GC before each
-      // measured operation. The plugin has the lowest priority and is the
-      // first to be executed 'before operation', preceding the built-in
-      // policies.
-      //
-      if (config.forceGc) {
-        plugins = new ExecutionPlugins.ForceGcPlugin() +: plugins
-      }
+        //
+        // Get effective execution policy (built-in or external) and if using
+        // a built-in policy, prepend it to list of plugins (external policy
+        // will be among the external plugins specified on the command line).
+        //
+        var plugins = externalPlugins.values.toSeq
+
+        val policy = getExecutionPolicy(config, benchmarks, externalPlugins)
+
+        // Co-located benchmarks each get a (built-in) policy of their own.
+        val colocatedPolicies = if (config.colocate) {
+          Some(benchmarks.map(_ => getExecutionPolicy(config, benchmarks, externalPlugins)))
+        } else {
+          None
+        }
+
+        // Sweep points each get a suite with the overrides for the point.
+        val sweepSuites = sweepPoints(config.sweeps.toSeq).zipWithIndex.map {
+          case (point, index) =>
+            val pointScratchRoot = Files.createDirectories(scratchRoot.resolve(s"sweep-$index"))
+            point -> createSuite(config, pointScratchRoot, config.parameterOverrides ++ point)
+        }
+
+        val sweepReport = if (config.sweeps.nonEmpty) Some(new SweepReport) else None
+
+        // Co-located benchmarks and sweep points get the policy via a private dispatcher.
+        if (
+          config.policyType != PolicyType.EXTERNAL &&
+          colocatedPolicies.isEmpty && sweepReport.isEmpty
+        ) {
+          plugins = policy +: plugins
+        }
 
-      // Determine VM start in terms of nanoTime() and
-      // initialize the result writers (if any) with the metric.
-      val vmStartNanos = getVmStartNanos
-      val writers = Seq(
-        config.csvOutput.map(f => new CsvWriter(f, vmStartNanos)),
-        config.jsonOutput.map(f => new JsonWriter(f, vmStartNanos))
-      ).flatten
+        plugins = plugins ++ sweepReport
 
-      // Register plugins and result writers for harness events.
-      val dispatcher = createEventDispatcher(plugins, writers)
+        //
+        // (Optionally) register the built-in plugin to force GC before each
+        // measured operation. The plugin has the lowest priority and is the
+        // first to be executed 'before operation', preceding the built-in
+        // policies.
+        //
+        if (config.forceGc) {
+          plugins = new ExecutionPlugins.ForceGcPlugin() +: plugins
+        }
+
+        // Determine VM start in terms of nanoTime() and
+        // initialize the result writers (if any) with the metric.
+        // A forked harness reports results to its parent instead.
+        val vmStartNanos = getVmStartNanos
+        val (writers, streamingWriters) = if (config.forkChild.isDefined) {
+          plugins = plugins :+ new ForkResultReporter(System.out)
+          (Seq(), Seq())
+        } else {
+          (
+            createResultWriters(config, vmStartNanos),
+            createStreamingResultWriters(config, vmStartNanos)
+          )
+        }
+
+        // Register plugins and result writers for harness events.
+        val dispatcher = createEventDispatcher(plugins, writers, streamingWriters)
+
+        val operationThreads = config.operationThreads
+
+        // Note: no access to Config beyond this point.
+        (colocatedPolicies, sweepReport) match {
+          case (Some(policies), _) =>
+            runColocatedBenchmarks(
+              suite,
+              benchmarks.zip(policies),
+              dispatcher,
+              vmStartNanos,
+              operationThreads
+            )
+          case (None, Some(report)) =>
+            runSweepBenchmarks(
+              sweepSuites,
+              benchmarks,
+              policy,
+              dispatcher,
+              report,
+              vmStartNanos,
+              operationThreads
+            )
+          case (None, None) =>
+            runBenchmarks(suite, benchmarks, policy, dispatcher, vmStartNanos, operationThreads)
+        }
+      }
 
-      // Note: no access to Config beyond this point.
-      val failedBenchmarks = runBenchmarks(suite, benchmarks, policy, dispatcher, vmStartNanos)
       if (failedBenchmarks.nonEmpty) {
         val failedBenchmarksList = failedBenchmarks.map(_.name()).mkString(", ")
         println(s"The following benchmarks failed: $failedBenchmarksList")
@@ -146,12 +210,94 @@ object RenaissanceSuite {
     }
   }
 
+  private def createSuite(
+    config: Config,
+    scratchRoot: Path,
+    parameterOverrides: Map[String, String]
+  ): BenchmarkSuite = {
+    Try(
+      BenchmarkSuite.create(
+        scratchRoot,
+        config.configuration,
+        config.benchmarkMetadataOverrideUri,
+        parameterOverrides.asJava,
+        getManifestUseModulesValue.orElse(config.useModules)
+      )
+    ) match {
+      case Success(suite) => suite
+      case Failure(cause) =>
+        Console.err.println("error: unable to initialize benchmark suite")
+        printCauseChain(cause, Console.err)
+        sys.exit(1)
+    }
+  }
+
+  /**
+   * Returns all combinations of the values of swept parameters. The values
+   * of the first parameter change the slowest. Without any swept parameters,
+   * there are no points.
+   */
+  private def sweepPoints(sweeps: Seq[(String, Seq[String])]): Seq[Seq[(String, String)]] = {
+    if (sweeps.isEmpty) {
+      Seq()
+    } else {
+      sweeps.foldLeft(Seq(Seq[(String, String)]())) {
+        case (points, (name, values)) =>
+          for (point <- points; value <- values) yield point :+ (name -> value)
+      }
+    }
+  }
+
+  /**
+   * Returns the product of the positive integer values at a sweep point,
+   * which represents the amount of resources (e.g., threads) used at the
+   * point. Returns 0 if the point has no such value.
+   */
+  private def sweepScale(point: Seq[(String, String)]): Long = {
+    val integers = point.flatMap { case (_, value) => Try(value.toLong).toOption }.filter(_ > 0)
+    if (integers.isEmpty) 0 else integers.product
+  }
+
+  private def createResultWriters(config: Config, vmStartNanos: Long): Seq[ResultWriter] = {
+    Seq(
+      config.csvOutput.map(f => new CsvWriter(f, vmStartNanos)),
+      config.jsonOutput.map(f => new JsonWriter(f, vmStartNanos))
+    ).flatten
+  }
+
+  private def createStreamingResultWriters(
+    config: Config,
+    vmStartNanos: Long
+  ): Seq[StreamingResultWriter] = {
+    Seq(
+      config.csvStreamOutput.map(f => new StreamingResultWriter.Csv(f, vmStartNanos)),
+      config.jsonLinesOutput.map(f => new StreamingResultWriter.JsonLines(f))
+    ).flatten
+  }
+
+  private def runForkedBenchmarks(
+    driver: ForkDriver,
+    benchmarks: Seq[BenchmarkDescriptor],
+    dispatcher: EventDispatcher
+  ): Seq[BenchmarkDescriptor] = {
+    // Notify observers that the suite is set up.
+    dispatcher.notifyAfterHarnessInit()
+
+    val failedNames = driver.executeBenchmarks(benchmarks.map(_.name()).asJava)
+
+    // Notify listeners that the suite is shutting down.
+    dispatcher.notifyBeforeHarnessShutdown()
+
+    benchmarks.filter(b => failedNames.contains(b.name()))
+  }
+
   private def runBenchmarks(
     suite: BenchmarkSuite,
     benchmarks: Seq[BenchmarkDescriptor],
     policy: ExecutionPolicy,
     dispatcher: EventDispatcher,
-    vmStartNanos: Long
+    vmStartNanos: Long,
+    operationThreads: Int
   ): Seq[BenchmarkDescriptor] = {
     // TODO: Why collect failing benchmarks instead of just quitting whenever one fails?
     val failedBenchmarks = mutable.Buffer[BenchmarkDescriptor]()
@@ -160,57 +306,198 @@ object RenaissanceSuite {
     dispatcher.notifyAfterHarnessInit()
 
     for (descriptor <- benchmarks) {
-      try {
-        val driver = ExecutionDriver.create(
-          suite,
-          descriptor,
-          dispatcher,
-          policy,
-          vmStartNanos
-        )
+      val succeeded =
+        createDriver(suite, descriptor, dispatcher, policy, vmStartNanos, operationThreads)
+          .exists(driver => executeDriver(driver, descriptor, dispatcher))
 
-        try {
-          driver.executeBenchmark()
-
-        } catch {
-          case cause: Throwable =>
-            // Notify observers that a benchmark failed, because they
-            // have been notified about the benchmark setup phase.
-            dispatcher.notifyOnBenchmarkFailure(descriptor.name)
-            failedBenchmarks += descriptor
-
-            cause match {
-              case _: ValidationException =>
-                Console.err.println(
-                  s"Benchmark '${descriptor.name()}' failed result validation:\n${cause.getMessage}"
-                )
-
-              case _ =>
-                Console.err.println(
-                  s"Benchmark '${descriptor.name()}' failed with exception:"
-                )
-                cause.printStackTrace(Console.err)
-            }
-        }
+      if (!succeeded) {
+        failedBenchmarks += descriptor
+      }
+    }
 
-      } catch {
-        case cause: Throwable =>
-          // Observers are not notified if a benchmark failed to load,
-          // because they do not know about the benchmark at all.
-          failedBenchmarks += descriptor
+    // Notify listeners that the suite is shutting down.
+    dispatcher.notifyBeforeHarnessShutdown()
 
-          Console.err.println(
-            s"Failed to load benchmark '${descriptor.name()}': ${cause.getMessage}"
+    failedBenchmarks.toSeq
+  }
+
+  private def runColocatedBenchmarks(
+    suite: BenchmarkSuite,
+    benchmarks: Seq[(BenchmarkDescriptor, ExecutionPolicy)],
+    dispatcher: EventDispatcher,
+    vmStartNanos: Long,
+    operationThreads: Int
+  ): Seq[BenchmarkDescriptor] = {
+    val failedBenchmarks = mutable.Buffer[BenchmarkDescriptor]()
+
+    // Notify observers that the suite is set up.
+    dispatcher.notifyAfterHarnessInit()
+
+    //
+    // Each benchmark is executed by its own driver thread. The driver gets
+    // a private dispatcher with the policy of the benchmark, which forwards
+    // all other events to the shared dispatcher. Benchmarks are loaded up
+    // front so that they all start executing at the same time.
+    //
+    val threads = mutable.Buffer[Thread]()
+    for ((descriptor, policy) <- benchmarks) {
+      val benchmarkDispatcher = new EventDispatcher.Builder()
+        .withPlugin(policy)
+        .withPlugin(new SharedDispatcherPlugin(dispatcher, ""))
+        .build()
+
+      val driver = createDriver(
+        suite,
+        descriptor,
+        benchmarkDispatcher,
+        policy,
+        vmStartNanos,
+        operationThreads
+      )
+
+      driver match {
+        case Some(driver) =>
+          threads += new Thread(
+            () => {
+              if (!executeDriver(driver, descriptor, benchmarkDispatcher)) {
+                failedBenchmarks.synchronized { failedBenchmarks += descriptor }
+              }
+            },
+            s"renaissance-${descriptor.name()}"
           )
+
+        case None =>
+          failedBenchmarks.synchronized { failedBenchmarks += descriptor }
       }
     }
 
+    threads.foreach(_.start())
+    threads.foreach(_.join())
+
     // Notify listeners that the suite is shutting down.
     dispatcher.notifyBeforeHarnessShutdown()
 
     failedBenchmarks.toSeq
   }
 
+  private def runSweepBenchmarks(
+    points: Seq[(Seq[(String, String)], BenchmarkSuite)],
+    benchmarks: Seq[BenchmarkDescriptor],
+    policy: ExecutionPolicy,
+    dispatcher: EventDispatcher,
+    report: SweepReport,
+    vmStartNanos: Long,
+    operationThreads: Int
+  ): Seq[BenchmarkDescriptor] = {
+    val failedBenchmarks = mutable.LinkedHashSet[BenchmarkDescriptor]()
+
+    // Notify observers that the suite is set up.
+    dispatcher.notifyAfterHarnessInit()
+
+    //
+    // At each point, the benchmarks are executed with a private dispatcher
+    // holding the policy, which forwards all other events to the shared
+    // dispatcher. The forwarded benchmark names are tagged with the values
+    // of the swept parameters, e.g., 'fj-kmeans[thread_count=4]', so that
+    // the results of each point are kept separate.
+    //
+    for ((point, pointSuite) <- points) {
+      val label = point.map { case (name, value) => s"$name=$value" }.mkString(";")
+      val pointDispatcher = new EventDispatcher.Builder()
+        .withPlugin(policy)
+        .withPlugin(new SharedDispatcherPlugin(dispatcher, s"[$label]"))
+        .build()
+
+      for (benchmark <- benchmarks) {
+        val name = benchmark.name()
+        report.addPoint(name, s"$name[$label]", label, sweepScale(point))
+
+        val descriptor = pointSuite.getBenchmark(name)
+        val succeeded = createDriver(
+          pointSuite,
+          descriptor,
+          pointDispatcher,
+          policy,
+          vmStartNanos,
+          operationThreads
+        ).exists(driver => executeDriver(driver, descriptor, pointDispatcher))
+
+        if (!succeeded) {
+          failedBenchmarks += benchmark
+        }
+      }
+    }
+
+    // Notify listeners that the suite is shutting down.
+    dispatcher.notifyBeforeHarnessShutdown()
+
+    report.print(System.out)
+
+    failedBenchmarks.toSeq
+  }
+
+  private def createDriver(
+    suite: BenchmarkSuite,
+    descriptor: BenchmarkDescriptor,
+    dispatcher: EventDispatcher,
+    policy: ExecutionPolicy,
+    vmStartNanos: Long,
+    operationThreads: Int
+  ): Option[ExecutionDriver] = {
+    try {
+      Some(
+        ExecutionDriver.create(
+          suite,
+          descriptor,
+          dispatcher,
+          policy,
+          vmStartNanos,
+          operationThreads
+        )
+      )
+    } catch {
+      case cause: Throwable =>
+        // Observers are not notified if a benchmark failed to load,
+        // because they do not know about the benchmark at all.
+        Console.err.println(
+          s"Failed to load benchmark '${descriptor.name()}': ${cause.getMessage}"
+        )
+        None
+    }
+  }
+
+  private def executeDriver(
+    driver: ExecutionDriver,
+    descriptor: BenchmarkDescriptor,
+    dispatcher: EventDispatcher
+  ): Boolean = {
+    try {
+      driver.executeBenchmark()
+      true
+
+    } catch {
+      case cause: Throwable =>
+        // Notify observers that a benchmark failed, because they
+        // have been notified about the benchmark setup phase.
+        dispatcher.notifyOnBenchmarkFailure(descriptor.name)
+
+        cause match {
+          case _: ValidationException =>
+            Console.err.println(
+              s"Benchmark '${descriptor.name()}' failed result validation:\n${cause.getMessage}"
+            )
+
+          case _ =>
+            Console.err.println(
+              s"Benchmark '${descriptor.name()}' failed with exception:"
+            )
+            cause.printStackTrace(Console.err)
+        }
+
+        false
+    }
+  }
+
   private def getVmStartNanos = {
     //
     // Get two nanoTime() samples around currentTimeMillis() that are as
@@ -330,12 +617,19 @@ object RenaissanceSuite {
       .toSeq
   }
 
-  private def createEventDispatcher(plugins: Iterable[Plugin], writers: Seq[ResultWriter]) = {
+  private def createEventDispatcher(
+    plugins: Iterable[Plugin],
+    writers: Seq[ResultWriter],
+    streamingWriters: Seq[StreamingResultWriter]
+  ) = {
     val builder = new EventDispatcher.Builder
 
     // Register plugins first
     plugins.foreach(builder.withPlugin)
 
+    // Streaming writers need operation events, register them as plugins
+    streamingWriters.foreach(builder.withPlugin)
+
     // Result writers go after plugins
     writers.foreach(builder.withResultWriter)
 
@@ -437,6 +731,13 @@ object RenaissanceSuite {
       case PolicyType.FIXED_TIME =>
         new FixedTime(SECONDS.toNanos(config.runSeconds))
 
+      case PolicyType.STEADY_STATE =>
+        new SteadyState(
+          config.steadyStatePrecision,
+          config.steadyStateMinCount,
+          config.steadyStateMaxCount
+        )
+
       case PolicyType.EXTERNAL =>
         plugins(config.policyPlugin) match {
           case policy: ExecutionPolicy => policy
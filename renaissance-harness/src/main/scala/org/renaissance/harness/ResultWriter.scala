@@ -45,9 +45,8 @@ private abstract class ResultWriter
 
   Runtime.getRuntime.addShutdownHook(storeHook)
 
-  // A result is a map of metric names to a sequence of metric values.
-  private final val resultsByBenchmarkName =
-    mutable.Map[String, mutable.Map[String, mutable.Buffer[Long]]]()
+  // Values of each benchmark metric, stored without boxing.
+  private final val results = new MetricStore
 
   private final val failedBenchmarkNames = mutable.Set[String]()
 
@@ -62,7 +61,7 @@ private abstract class ResultWriter
       }
 
       // Sanity check to avoid simple cases of plugin misbehavior.
-      checkBenchmarkResults(resultsByBenchmarkName) match {
+      checkBenchmarkResults(results.columns.asScala) match {
         case Some(message) =>
           Console.err.println(s"error: benchmark results failed sanity check: $message")
           sys.exit(1)
@@ -71,12 +70,10 @@ private abstract class ResultWriter
       }
     }
 
-  private def checkBenchmarkResults(
-    results: Iterable[(String, mutable.Map[String, mutable.Buffer[Long]])]
-  ) = {
-    // Ensure all metrics have the same number of measurements in all benchmarks.
-    val sizes = results.flatMap(_._2.values).map(_.size).toIndexedSeq
-    if (sizes.exists(_ != sizes.head)) {
+  private def checkBenchmarkResults(columns: Iterable[MetricStore.Column]) = {
+    // Ensure all metrics of each benchmark have the same number of measurements.
+    val sizesByBenchmark = columns.groupBy(_.benchmark).values.map(_.map(_.size))
+    if (sizesByBenchmark.exists(sizes => sizes.exists(_ != sizes.head))) {
       Some("inconsistent number of measurements (check plugin configuration)")
     } else {
       None
@@ -92,9 +89,7 @@ private abstract class ResultWriter
     metric: String,
     value: Long
   ): Unit = {
-    val metricsByName = resultsByBenchmarkName.getOrElseUpdate(benchmark, mutable.Map())
-    val metricValues = metricsByName.getOrElseUpdate(metric, mutable.Buffer())
-    metricValues += value
+    results.add(benchmark, metric, value)
   }
 
   final override def onBenchmarkFailure(benchmarkName: String): Unit = {
@@ -102,19 +97,19 @@ private abstract class ResultWriter
   }
 
   protected final def getBenchmarkNames: Iterable[String] = {
-    resultsByBenchmarkName.keys
+    results.benchmarks.asScala
   }
 
   protected final def getMetricNames: Seq[String] = {
-    val metricNames = resultsByBenchmarkName.values.flatMap(_.keys)
+    val metricNames = results.columns.asScala.map(_.metric)
     metricNames.toSeq.distinct.sorted
   }
 
   protected final def getBenchmarkResults
-    : Iterable[(String, Boolean, Map[String, mutable.Buffer[Long]], Int)] =
+    : Iterable[(String, Boolean, Map[String, MetricStore.Column], Int)] =
     for {
       benchName <- getBenchmarkNames
-      metricsByName = resultsByBenchmarkName(benchName).toMap
+      metricsByName = results.columns(benchName).asScala.toMap
       benchFailed = failedBenchmarkNames.contains(benchName)
       repetitionCount = metricsByName.values.map(_.size).max
     } yield (benchName, benchFailed, metricsByName, repetitionCount)
@@ -167,7 +162,7 @@ private final class CsvWriter(val csvFile: Path, val vmStartNanos: Long) extends
 
         for (metricName <- metricNames) {
           val values = metricsByName.get(metricName)
-          val stringValue = values.map(values => values(i).toString).getOrElse("NA")
+          val stringValue = values.map(values => values.get(i).toString).getOrElse("NA")
           csv.append(",").append(stringValue)
         }
 
@@ -424,7 +419,7 @@ private final class JsonWriter(val jsonFile: Path, vmStartNanos: Long) extends R
       // For each repetition, collect (name -> value) tuples for metrics into a map.
       val repetitions = (0 until repetitionCount).map(i =>
         metricNames
-          .flatMap(name => metricsByName.get(name).map(values => name -> values(i).toJson))
+          .flatMap(name => metricsByName.get(name).map(values => name -> values.get(i).toJson))
           .toMap
       )
 
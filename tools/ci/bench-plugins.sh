@@ -15,7 +15,12 @@ java \
     -Xms2500M -Xmx2500M \
     "-agentpath:$ubench_agent_path" \
     -jar "$RENAISSANCE_JAR" \
+    --plugin "$( get_plugin_spec "jfr" )" \
+    --plugin "$( get_plugin_spec "jmx-allocation" )" \
+    --plugin "$( get_plugin_spec "jmx-contention" )" \
+    --plugin "$( get_plugin_spec "jmx-gc" )" \
     --plugin "$( get_plugin_spec "jmx-timers" )" \
+    --plugin "$( get_plugin_spec "linux-proc" )" \
     --plugin "$( get_plugin_spec "ubench-agent" )" --with-arg "SYS:wallclock-time,JVM:compilations" \
     -c test \
     -r 2 \
@@ -29,7 +34,7 @@ echo
 collected_metrics="$( jq -r '.data["dummy-empty"]["results"][0]|keys|.[]|.' output.json  | sort )"
 echo "$collected_metrics"
 echo
-for expected in duration_ns jmx_timers_compilation_time_ms jmx_timers_compilation_total_ms ubench_agent_JVM:compilations ubench_agent_SYS:wallclock-time uptime_ns; do
+for expected in allocated_bytes allocation_rate_bytes_per_s duration_ns jfr_compilation_count jfr_gc_pause_ns jmx_contention_blocked_ms jmx_contention_waited_count jmx_gc_pause_count jmx_gc_pause_p99_ms jmx_timers_compilation_time_ms jmx_timers_compilation_total_ms proc_cpu_user_ms proc_minor_faults ubench_agent_JVM:compilations ubench_agent_SYS:wallclock-time uptime_ns; do
     if ! echo "$collected_metrics" | grep -x -F "$expected"; then
         echo "Metric $expected not found, aborting!" >&2
         exit 1
@@ -14,7 +14,7 @@ popd
 
 
 # Build the plugins
-for plugin_dir in jmx-memory jmx-timers ubench-agent; do
+for plugin_dir in jfr jmx-allocation jmx-contention jmx-gc jmx-memory jmx-nmt jmx-timers linux-proc stack-sampler ubench-agent; do
     pushd "plugins/$plugin_dir"
     ci_sbt assembly
     popd